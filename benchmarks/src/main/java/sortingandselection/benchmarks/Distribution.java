@@ -0,0 +1,299 @@
+package sortingandselection.benchmarks;
+
+import java.util.Random;
+import sortingandselection.Record;
+
+/**
+ *
+ * Key distributions used to generate benchmark inputs. Every distribution
+ * produces non-negative keys in the range [0, n) so that the same input can be
+ * fed to the comparison sorts as well as to bucket sort and counting sort.
+ */
+public enum Distribution {
+
+    RANDOM {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            for (int i = 0; i < n; ++i) {
+                k[i] = rnd.nextInt(n);
+            }
+
+            return k;
+        }
+    },
+    SORTED {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            for (int i = 0; i < n; ++i) {
+                k[i] = i;
+            }
+
+            return k;
+        }
+    },
+    REVERSE {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            for (int i = 0; i < n; ++i) {
+                k[i] = n - 1 - i;
+            }
+
+            return k;
+        }
+    },
+    FEW_UNIQUE {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            for (int i = 0; i < n; ++i) {
+                k[i] = rnd.nextInt(Math.min(n, FEW_UNIQUE_KEYS));
+            }
+
+            return k;
+        }
+    },
+    APPENDED {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            /*A sorted log with random entries appended to its last tenth*/
+            int sorted = n - n / 10;
+
+            for (int i = 0; i < n; ++i) {
+                k[i] = i < sorted ? i : rnd.nextInt(n);
+            }
+
+            return k;
+        }
+    },
+    ORGAN_PIPE {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            /*Ascend to the middle of the array, then descend back down*/
+            for (int i = 0; i < n; ++i) {
+                k[i] = i < (n >> 1) ? i << 1 : ((n - 1 - i) << 1) + 1;
+            }
+
+            return k;
+        }
+    },
+    GAUSSIAN {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            int[] k = new int[n];
+
+            double mean = n / 2.0, sd = n / 8.0;
+
+            for (int i = 0; i < n; ++i) {
+
+                long g = Math.round(mean + rnd.nextGaussian() * sd);
+
+                k[i] = (int) Math.max(0, Math.min(n - 1, g));
+            }
+
+            return k;
+        }
+    },
+    ZIPF {
+        @Override
+        int[] keys(int n, Random rnd) {
+
+            /*Cumulative distribution of a Zipf law with exponent 1 over n
+             * ranks; rank r is drawn with probability proportional to 1 / r*/
+            double[] cdf = new double[n];
+
+            double total = 0;
+
+            for (int r = 0; r < n; ++r) {
+                total += 1.0 / (r + 1);
+                cdf[r] = total;
+            }
+
+            int[] k = new int[n];
+
+            for (int i = 0; i < n; ++i) {
+
+                double u = rnd.nextDouble() * total;
+
+                int lo = 0, hi = n - 1;
+
+                while (lo < hi) {
+
+                    int m = lo + ((hi - lo) >> 1);
+
+                    if (cdf[m] < u) {
+                        lo = m + 1;
+                    } else {
+                        hi = m;
+                    }
+                }
+
+                k[i] = lo;
+            }
+
+            return k;
+        }
+    };
+
+    static final int FEW_UNIQUE_KEYS = 16;
+
+    /**
+     * The fewest elements one invocation of a sort or selection benchmark
+     * works on. Sorting a few thousand elements takes microseconds, too little
+     * to time reliably around an invocation-level setup, so smaller inputs are
+     * processed as a batch of independent copies adding up to this many
+     * elements.
+     */
+    public static final int BATCH_ELEMENTS = 100000;
+
+    /**
+     *
+     * @param n the number of keys to generate
+     * @param rnd the source of randomness
+     * @return n keys in the range [0, n) following this distribution
+     */
+    abstract int[] keys(int n, Random rnd);
+
+    /**
+     *
+     * @param n the number of Records to generate
+     * @param seed the seed for the random number generator, so that every
+     * benchmark sees the same input for the same parameters
+     * @return an array of n Records whose keys follow this distribution
+     */
+    public Record[] records(int n, long seed) {
+
+        int[] k = keys(n, new Random(seed));
+
+        Record[] a = new Record[n];
+
+        for (int i = 0; i < n; ++i) {
+            a[i] = new Record(k[i], Integer.toString(i));
+        }
+
+        return a;
+    }
+
+    /**
+     *
+     * @param n the number of Records in each array
+     * @param seed the seed for the random number generator
+     * @param count the number of arrays
+     * @return count arrays with the keys of {@link #records(int, long)}, each
+     * made of its own Records, so that a sort which relinks the Records of
+     * one array leaves the others alone
+     */
+    public Record[][] records(int n, long seed, int count) {
+
+        Record[][] a = new Record[count][];
+
+        for (int c = 0; c < count; ++c) {
+            a[c] = records(n, seed);
+        }
+
+        return a;
+    }
+
+    /**
+     *
+     * @param n the number of elements in one input
+     * @return the number of inputs of n elements that make up one batch of
+     * at least {@value #BATCH_ELEMENTS} elements
+     */
+    public static int batch(int n) {
+        return Math.max(1, BATCH_ELEMENTS / Math.max(1, n));
+    }
+
+    /**
+     * Copy the Records of a prototype array into a working array and clear
+     * their links. Several sorts (bucket sort in particular) reuse the
+     * next/prev references of their input, so every invocation has to start
+     * from unlinked Records.
+     *
+     * @param prototype the unsorted input
+     * @param a the working array, at least as long as prototype
+     */
+    public static void reset(Record[] prototype, Record[] a) {
+
+        for (int i = 0; i < prototype.length; ++i) {
+
+            Record r = prototype[i];
+
+            r.next = r.prev = null;
+
+            a[i] = r;
+        }
+    }
+
+    /**
+     * {@link #reset(Record[], Record[])} every input of a batch.
+     *
+     * @param prototypes the unsorted inputs
+     * @param a the working arrays, one per input
+     */
+    public static void reset(Record[][] prototypes, Record[][] a) {
+
+        for (int c = 0; c < prototypes.length; ++c) {
+            reset(prototypes[c], a[c]);
+        }
+    }
+
+    /**
+     * Copy the Records of a prototype array into a doubly linked list in
+     * array order.
+     *
+     * @param prototype the unsorted input
+     * @return the "head" node (Record) of the linked list
+     */
+    public static Record link(Record[] prototype) {
+
+        Record prev = null;
+
+        for (Record r : prototype) {
+
+            r.prev = prev;
+            r.next = null;
+
+            if (prev != null) {
+                prev.next = r;
+            }
+
+            prev = r;
+        }
+
+        return prototype.length == 0 ? null : prototype[0];
+    }
+
+    /**
+     *
+     * @param a the Records to scan
+     * @return the largest key found in a, or 0 if a is empty
+     */
+    public static int maxKey(Record[] a) {
+
+        int max = 0;
+
+        for (Record r : a) {
+            max = Math.max(max, r.getKey());
+        }
+
+        return max;
+    }
+}
@@ -0,0 +1,91 @@
+package sortingandselection.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.KWayMerge;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of combining pre-sorted shards into one sorted sequence, either
+ * with a k-way merge or by concatenating the shards and sorting the result.
+ * The input is split into equal shards, each sorted once during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KWayMergeBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"4", "16", "64"})
+    int shards;
+
+    @Param({"RANDOM", "FEW_UNIQUE", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] runs;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        Record[] prototype = distribution.records(size, 42L);
+
+        runs = new Record[shards][];
+
+        for (int i = 0, lo = 0; i < shards; ++i) {
+
+            int hi = (int) ((long) size * (i + 1) / shards);
+
+            runs[i] = new Record[hi - lo];
+
+            System.arraycopy(prototype, lo, runs[i], 0, hi - lo);
+
+            SortingAndSelection.mergeSort(runs[i]);
+
+            lo = hi;
+        }
+    }
+
+    @Benchmark
+    public long kWayMerge() {
+
+        long sum = 0;
+
+        for (KWayMerge m = KWayMerge.of(runs); m.hasNext();) {
+            sum += m.next().getKey();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public Record[] concatenateAndSort() {
+
+        Record[] a = new Record[size];
+
+        for (int i = 0, at = 0; i < shards; at += runs[i++].length) {
+            System.arraycopy(runs[i], 0, a, at, runs[i].length);
+        }
+
+        SortingAndSelection.mergeSort(a);
+
+        return a;
+    }
+}
@@ -0,0 +1,91 @@
+package sortingandselection.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of the linked list sorts. The list is relinked in the original
+ * order before every invocation. Lists shorter than
+ * {@value Distribution#BATCH_ELEMENTS} Records are sorted as a batch of
+ * independent lists per invocation; an operation is one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkedListSortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] prototypes;
+    Record[] heads;
+    int max;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototypes = distribution.records(size, 42L, Distribution.batch(size));
+
+        heads = new Record[prototypes.length];
+
+        max = Distribution.maxKey(prototypes[0]);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+
+        for (int c = 0; c < prototypes.length; ++c) {
+            heads[c] = Distribution.link(prototypes[c]);
+        }
+    }
+
+    @Benchmark
+    public Record[] mergeSortLinkedList() {
+
+        for (int c = 0; c < heads.length; ++c) {
+            heads[c] = SortingAndSelection.mergeSortLinkedList(heads[c]);
+        }
+
+        return heads;
+    }
+
+    @Benchmark
+    public Record[] bucketSortLinkedList() {
+
+        for (int c = 0; c < heads.length; ++c) {
+            heads[c] = SortingAndSelection.bucketSortLinkedList(heads[c], max);
+        }
+
+        return heads;
+    }
+
+    @Benchmark
+    public Record[] bucketSortLinkedListInPlace() {
+
+        for (int c = 0; c < heads.length; ++c) {
+            heads[c] = SortingAndSelection.bucketSortLinkedListInPlace(heads[c], size);
+        }
+
+        return heads;
+    }
+}
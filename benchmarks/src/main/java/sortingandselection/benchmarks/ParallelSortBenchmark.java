@@ -0,0 +1,117 @@
+package sortingandselection.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of the parallel sorts at increasing pool sizes. Dividing the
+ * result at a given parallelism by the result at parallelism 1 gives the
+ * speedup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSortBenchmark {
+
+    @Param({"1000000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "FEW_UNIQUE", "ZIPF"})
+    Distribution distribution;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    int parallelism;
+
+    Record[] prototype;
+    Record[] a;
+    int[] keyPrototype;
+    int[] keys;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototype = distribution.records(size, 42L);
+
+        a = new Record[size];
+
+        keyPrototype = distribution.keys(size, new Random(42L));
+
+        keys = new int[size];
+
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+
+        Distribution.reset(prototype, a);
+
+        System.arraycopy(keyPrototype, 0, keys, 0, size);
+    }
+
+    @Benchmark
+    public Record[] parallelMergeSort() {
+
+        SortingAndSelection.parallelMergeSort(a, pool);
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[] parallelQuickSort() {
+
+        SortingAndSelection.parallelQuickSort(a, pool);
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[] parallelCountingSort() {
+
+        SortingAndSelection.countingSort(a, pool);
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[] parallelRadixSort() {
+
+        SortingAndSelection.parallelRadixSort(a, pool);
+
+        return a;
+    }
+
+    @Benchmark
+    public int[] parallelRadixSortInts() {
+
+        SortingAndSelection.parallelRadixSort(keys, pool);
+
+        return keys;
+    }
+}
@@ -0,0 +1,111 @@
+package sortingandselection.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of the primitive key overloads. The keys are the same as the
+ * Record keys generated for {@link SortBenchmark}, so the two suites can be
+ * compared directly, and inputs smaller than
+ * {@value Distribution#BATCH_ELEMENTS} keys are likewise processed as a batch
+ * of independent copies per invocation; an operation is one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveSortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    int[] prototype;
+    int[][] a;
+    long[][] longs;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototype = distribution.keys(size, new Random(42L));
+
+        a = new int[Distribution.batch(size)][size];
+
+        longs = new long[a.length][size];
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+
+        for (int c = 0; c < a.length; ++c) {
+
+            System.arraycopy(prototype, 0, a[c], 0, size);
+
+            for (int i = 0; i < size; ++i) {
+                longs[c][i] = prototype[i];
+            }
+        }
+    }
+
+    @Benchmark
+    public int[][] sortInts() {
+
+        for (int[] input : a) {
+            SortingAndSelection.sort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public long[][] sortLongs() {
+
+        for (long[] input : longs) {
+            SortingAndSelection.sort(input);
+        }
+
+        return longs;
+    }
+
+    @Benchmark
+    public int[] quickSelectMedian() {
+
+        int[] r = new int[a.length];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.quickSelect(a[c], (size >> 1) + 1);
+        }
+
+        return r;
+    }
+
+    @Benchmark
+    public int[][] sortIndices() {
+
+        int[][] r = new int[a.length][];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.sortIndices(prototype);
+        }
+
+        return r;
+    }
+}
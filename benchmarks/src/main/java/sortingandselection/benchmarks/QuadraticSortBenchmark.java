@@ -0,0 +1,87 @@
+package sortingandselection.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of the quadratic sorts. These are kept apart from
+ * {@link SortBenchmark} so they can be run on sizes where they still finish,
+ * and so the crossover point against the n log n sorts can be read off the
+ * 1000-element results of both suites. As there, inputs smaller than
+ * {@value Distribution#BATCH_ELEMENTS} elements are sorted as a batch of
+ * independent copies per invocation; an operation is one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadraticSortBenchmark {
+
+    @Param({"16", "100", "1000", "10000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] prototypes;
+    Record[][] a;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototypes = distribution.records(size, 42L, Distribution.batch(size));
+
+        a = new Record[prototypes.length][size];
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        Distribution.reset(prototypes, a);
+    }
+
+    @Benchmark
+    public Record[][] insertionSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.insertionSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] selectionSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.selectionSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] simpleSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.simpleSort(input);
+        }
+
+        return a;
+    }
+}
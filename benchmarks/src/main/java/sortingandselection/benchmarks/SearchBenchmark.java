@@ -0,0 +1,142 @@
+package sortingandselection.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.EytzingerIndex;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Latency of lookups on a sorted array, by binary search and through an
+ * {@link EytzingerIndex} built from the same array. The lookups never change
+ * their input, so unlike {@link SelectionBenchmark} this state has no
+ * invocation-level setup: the sorted array, the index and the precomputed
+ * sequence of query keys are built once per trial, and nothing but the
+ * lookups touches them between invocations. Each single lookup takes the next
+ * key of the sequence; the batch lookups of binarySearchAll take the whole
+ * sequence, in the generated order and in ascending order, and are reported
+ * per key so that they compare directly with the single lookups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    static final int QUERIES = 1 << 16;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    Record[] sorted;
+    EytzingerIndex index;
+    int[] queries;
+    int[] sortedQueries;
+    int q;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        sorted = distribution.records(size, 42L);
+
+        SortingAndSelection.mergeSort(sorted);
+
+        index = new EytzingerIndex(sorted);
+
+        Random rnd = new Random(7L);
+
+        queries = new int[QUERIES];
+
+        for (int i = 0; i < QUERIES; ++i) {
+            queries[i] = rnd.nextInt(size);
+        }
+
+        sortedQueries = queries.clone();
+
+        SortingAndSelection.sort(sortedQueries);
+    }
+
+    @Benchmark
+    public int binarySearch() {
+
+        q = (q + 1) & (QUERIES - 1);
+
+        return SortingAndSelection.binarySearch(sorted, queries[q]);
+    }
+
+    @Benchmark
+    public int eytzingerLowerBound() {
+
+        q = (q + 1) & (QUERIES - 1);
+
+        return index.lowerBound(queries[q]);
+    }
+
+    @Benchmark
+    public int[] eytzingerEqualRange() {
+
+        q = (q + 1) & (QUERIES - 1);
+
+        return index.equalRange(queries[q]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] binarySearchAll() {
+        return SortingAndSelection.binarySearchAll(sorted, queries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] binarySearchAllSortedQueries() {
+        return SortingAndSelection.binarySearchAll(sorted, sortedQueries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] binarySearchAllParallel(Pool p) {
+        return SortingAndSelection.binarySearchAll(sorted, queries, p.pool);
+    }
+
+    /**
+     *
+     * The pool of the parallel batch lookup, sized to the machine. It is a
+     * state of its own so that only the benchmark using it starts threads.
+     */
+    @State(Scope.Thread)
+    public static class Pool {
+
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pool = new ForkJoinPool();
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+}
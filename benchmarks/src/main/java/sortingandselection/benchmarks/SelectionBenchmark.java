@@ -0,0 +1,125 @@
+package sortingandselection.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of selection. Quickselect reorders its input, so it
+ * works on a fresh copy per invocation, and inputs smaller than
+ * {@value Distribution#BATCH_ELEMENTS} Records are selected from as a batch
+ * of independent copies per invocation; an operation is one batch. The
+ * searches, which leave their input alone, are timed by
+ * {@link SearchBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] prototypes;
+    Record[][] a;
+    int[] percentiles;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototypes = distribution.records(size, 42L, Distribution.batch(size));
+
+        a = new Record[prototypes.length][size];
+
+        /*Ranks of p50, p90, p99 and p99.9*/
+        percentiles = new int[]{
+            (int) Math.ceil(size * 0.5), (int) Math.ceil(size * 0.9),
+            (int) Math.ceil(size * 0.99), (int) Math.ceil(size * 0.999)};
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        Distribution.reset(prototypes, a);
+    }
+
+    @Benchmark
+    public Record[] quickSelectMedian() {
+
+        Record[] r = new Record[a.length];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.quickSelect(a[c], (size >> 1) + 1);
+        }
+
+        return r;
+    }
+
+    @Benchmark
+    public Record[] quickSelect3WayMedian() {
+
+        Record[] r = new Record[a.length];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.quickSelect3Way(a[c], (size >> 1) + 1);
+        }
+
+        return r;
+    }
+
+    @Benchmark
+    public Record[] introSelectMedian() {
+
+        Record[] r = new Record[a.length];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.introSelect(a[c], (size >> 1) + 1);
+        }
+
+        return r;
+    }
+
+    @Benchmark
+    public Record[][] introSelectPercentiles() {
+
+        Record[][] r = new Record[a.length][percentiles.length];
+
+        for (int c = 0; c < a.length; ++c) {
+            for (int i = 0; i < percentiles.length; ++i) {
+                r[c][i] = SortingAndSelection.introSelect(a[c], percentiles[i]);
+            }
+        }
+
+        return r;
+    }
+
+    @Benchmark
+    public Record[][] multiSelectPercentiles() {
+
+        Record[][] r = new Record[a.length][];
+
+        for (int c = 0; c < a.length; ++c) {
+            r[c] = SortingAndSelection.multiSelect(a[c], percentiles);
+        }
+
+        return r;
+    }
+}
@@ -0,0 +1,234 @@
+package sortingandselection.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * Throughput of the n log n and linear-time array sorts. Each invocation sorts
+ * a fresh copy of the same unsorted input, so the copy is done in an
+ * invocation-level setup and is excluded from both the timing and the
+ * allocation rate reported by the gc profiler. Inputs smaller than
+ * {@value Distribution#BATCH_ELEMENTS} elements are sorted as a batch of
+ * independent copies per invocation, so that every timed invocation runs for
+ * milliseconds; an operation is one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSE", "APPENDED", "FEW_UNIQUE", "ORGAN_PIPE", "GAUSSIAN", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] prototypes;
+    Record[][] a;
+    Record[] scratch;
+    int max;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        prototypes = distribution.records(size, 42L, Distribution.batch(size));
+
+        a = new Record[prototypes.length][size];
+
+        scratch = new Record[size];
+
+        max = Distribution.maxKey(prototypes[0]);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        Distribution.reset(prototypes, a);
+    }
+
+    @Benchmark
+    public Record[][] sort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.sort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] sortUnstable() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.sort(input, false);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] quickSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.quickSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] introSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.introSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] quickSort3Way() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.quickSort3Way(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] mergeSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.mergeSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] mergeSortReusedScratch() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.mergeSort(input, scratch);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] powerSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.powerSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] heapSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.heapSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] heapSort4Ary() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.heapSort(input, 4);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] heapSort8Ary() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.heapSort(input, 8);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] inPlaceHeapSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.inPlaceHeapSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] bucketSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.bucketSort(input, max);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] indexBucketSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.indexBucketSort(input, size);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] countingSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.countingSort(input, max);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] countingSortAutoRange() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.countingSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] radixSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.radixSort(input, scratch);
+        }
+
+        return a;
+    }
+}
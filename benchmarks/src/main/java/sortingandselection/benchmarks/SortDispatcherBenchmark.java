@@ -0,0 +1,124 @@
+package sortingandselection.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sortingandselection.Record;
+import sortingandselection.SortDispatcher;
+import sortingandselection.SortingAndSelection;
+
+/**
+ *
+ * The engines of {@link SortDispatcher} on the small arrays around its default
+ * insertion and radix thresholds, to fit those thresholds to a machine. Each
+ * benchmark makes the same call the dispatcher makes for its engine. The keys
+ * of the distribution are spread over the whole non-negative int range, so
+ * that counting sort is out of the question, as it is for any array that
+ * reaches these rules, and radix sort has to look at every key byte. As in
+ * {@link SortBenchmark}, every invocation sorts a batch of independent copies
+ * adding up to {@value Distribution#BATCH_ELEMENTS} Records, so the scores of
+ * different sizes compare as Records sorted per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortDispatcherBenchmark {
+
+    @Param({"16", "32", "64", "128", "256", "512", "1024"})
+    int size;
+
+    @Param({"RANDOM", "FEW_UNIQUE", "ZIPF"})
+    Distribution distribution;
+
+    Record[][] prototypes;
+    Record[][] a;
+
+    @Setup(Level.Trial)
+    public void generate() {
+
+        int[] keys = distribution.keys(size, new Random(42L)), spread = new int[size];
+
+        for (int i = 0; i < size; ++i) {
+            spread[i] = (int) ((long) keys[i] * Integer.MAX_VALUE / size);
+        }
+
+        prototypes = new Record[Distribution.batch(size)][size];
+
+        for (Record[] p : prototypes) {
+            for (int i = 0; i < size; ++i) {
+                p[i] = new Record(spread[i], Integer.toString(i));
+            }
+        }
+
+        a = new Record[prototypes.length][size];
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        Distribution.reset(prototypes, a);
+    }
+
+    @Benchmark
+    public Record[][] insertionSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.insertionSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] radixSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.radixSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] mergeSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.mergeSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] introSort() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.introSort(input);
+        }
+
+        return a;
+    }
+
+    @Benchmark
+    public Record[][] quickSort3Way() {
+
+        for (Record[] input : a) {
+            SortingAndSelection.quickSort3Way(input);
+        }
+
+        return a;
+    }
+}
@@ -0,0 +1,269 @@
+package sortingandselection;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A heap in which every node has up to d children instead of two. With d = 4
+ * or d = 8 the tree is half or a third as deep as a binary heap, so add and
+ * remove move a Record through fewer levels.
+ *
+ * The keys of the Records are kept in an int array parallel to the Record
+ * array, and the heap is ordered by comparing these ints directly, so no
+ * Record is dereferenced while a position is searched for. The children of
+ * a node are adjacent in both arrays, and the key array is offset so that
+ * every group of siblings starts at a multiple of d; scanning the children of
+ * a node then touches a single cache line in most cases.
+ *
+ * Min and max heaps are created by {@link #min(int)} and {@link #max(int)} and
+ * their overloads; the two share every method.
+ *
+ * Records are ordered by key alone. Subclasses of Record that override
+ * compareTo to order equal keys are not ordered by that override.
+ */
+public final class DaryHeap extends Heap {
+
+    final int d;
+    /*0 for a min heap. For a max heap every key is stored complemented, which
+     * reverses the order of all ints, so both kinds share one implementation*/
+    private final int flip;
+    private final int offset;
+    int[] keys;
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @return an empty min heap: the Record with the smallest key is at the
+     * top
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap min(int d) {
+        return new DaryHeap(d, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @param initialCapacity the number of Records to reserve space for
+     * @return an empty min heap
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap min(int d, int initialCapacity) {
+        return new DaryHeap(d, initialCapacity, false);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @param a the Records to build the heap from; the array is copied
+     * @return a min heap of the Records of a
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap min(int d, Record[] a) {
+        return new DaryHeap(d, a, false);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @return an empty max heap: the Record with the largest key is at the top
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap max(int d) {
+        return new DaryHeap(d, DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @param initialCapacity the number of Records to reserve space for
+     * @return an empty max heap
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap max(int d, int initialCapacity) {
+        return new DaryHeap(d, initialCapacity, true);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node, typically 4 or 8
+     * @param a the Records to build the heap from; the array is copied
+     * @return a max heap of the Records of a
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static DaryHeap max(int d, Record[] a) {
+        return new DaryHeap(d, a, true);
+    }
+
+    /**
+     *
+     * @param d the number of children of every node
+     * @param initialCapacity the number of Records to reserve space for
+     * @param max {@code true} for a max heap
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    private DaryHeap(int d, int initialCapacity, boolean max) {
+
+        if (d < 2) {
+            throw new IllegalArgumentException("a heap node needs at least 2 children");
+        }
+
+        this.d = d;
+        this.flip = max ? -1 : 0;
+        this.offset = d - 2;
+
+        heap = new Record[Math.max(1, initialCapacity) + 1];
+        keys = new int[heap.length + offset];
+
+        count = 0;
+    }
+
+    /**
+     *
+     * @param d the number of children of every node
+     * @param a the Records to build the heap from; the array is copied
+     * @param max {@code true} for a max heap
+     */
+    private DaryHeap(int d, Record[] a, boolean max) {
+
+        this(d, a.length, max);
+
+        System.arraycopy(a, 0, heap, 1, a.length);
+
+        count = a.length;
+
+        for (int i = 1; i <= count; ++i) {
+            keys[i + offset] = heap[i].key ^ flip;
+        }
+
+        heapify();
+    }
+
+    /**
+     *
+     * @return the number of children of every node
+     */
+    public int arity() {
+        return d;
+    }
+
+    @Override
+    void set(int i, Record r) {
+
+        heap[i] = r;
+        keys[i + offset] = r.key ^ flip;
+    }
+
+    @Override
+    Record removeTop() {
+
+        if (count == 0) {
+            return null;
+        }
+
+        Record top = heap[1];
+
+        heap[1] = heap[count];
+        keys[1 + offset] = keys[count + offset];
+
+        heap[count--] = null;
+
+        if (count > 0) {
+            bubbleDown(1);
+        }
+
+        return top;
+    }
+
+    /**
+     *
+     * Move the Record at index i up towards the root. The Records it passes
+     * are shifted down one level and the Record is written once, into the
+     * hole left at its final position.
+     */
+    @Override
+    void bubbleUp(int i) {
+
+        Record r = heap[i];
+
+        int k = keys[i + offset], p;
+
+        while (i > 1 && keys[(p = (i - 2) / d + 1) + offset] > k) {
+
+            heap[i] = heap[p];
+            keys[i + offset] = keys[p + offset];
+
+            i = p;
+        }
+
+        heap[i] = r;
+        keys[i + offset] = k;
+    }
+
+    /**
+     *
+     * Move the Record at index i down towards the leaves, swapping it with
+     * the smallest of its children (after flipping) while that child is
+     * smaller than it.
+     */
+    @Override
+    void bubbleDown(int i) {
+
+        Record r = heap[i];
+
+        int k = keys[i + offset];
+
+        for (;;) {
+
+            /*The children of i are d(i - 1) + 2 to d(i - 1) + d + 1*/
+            long f = (long) d * (i - 1) + 2;
+
+            if (f > count) {
+                break;
+            }
+
+            int first = (int) f, last = (int) Math.min(f + d - 1, count);
+
+            int m = first, mk = keys[first + offset];
+
+            for (int c = first + 1; c <= last; ++c) {
+
+                int ck = keys[c + offset];
+
+                if (ck < mk) {
+                    m = c;
+                    mk = ck;
+                }
+            }
+
+            if (k <= mk) { /*the correct place had been found*/
+                break;
+            }
+
+            heap[i] = heap[m];
+            keys[i + offset] = mk;
+
+            i = m;
+        }
+
+        heap[i] = r;
+        keys[i + offset] = k;
+    }
+
+    @Override
+    void heapify() {
+
+        /*The last node with children is the parent of the last node*/
+        for (int i = count > 1 ? (count - 2) / d + 1 : 0; i > 0; --i) {
+            bubbleDown(i);
+        }
+    }
+
+    @Override
+    void resize(int capacity) {
+
+        super.resize(capacity);
+
+        keys = Arrays.copyOf(keys, heap.length + offset);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,402 @@
+package sortingandselection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ * External mergesort for files of Records that are too large to be held in
+ * memory at once.
+ *
+ * The input is read in chunks of at most runSize Records, each chunk is sorted
+ * in memory with {@link SortingAndSelection#mergeSort(Record[], Record[])} and
+ * written out as a sorted run to a temporary file. The runs are then merged
+ * fanIn at a time, driven by a {@link MinHeap} holding the current head of
+ * every run, until one run remains, which is the output. Ties between runs
+ * are broken in favour of the run that was read first, so the sort is stable.
+ * Memory use is bounded by the run size plus one read buffer per merged run,
+ * regardless of the size of the input.
+ *
+ * Files are sequences of Records, each written as its int key followed by its
+ * value in modified UTF-8 (see {@link #write(DataOutputStream, Record)}).
+ */
+public class ExternalSort {
+
+    /**
+     * A rough figure for the heap footprint of one Record with a short value,
+     * including its slots in the chunk and scratch arrays. Used to derive the
+     * run size from a memory budget.
+     */
+    static final int ESTIMATED_RECORD_BYTES = 128;
+    static final int DEFAULT_FAN_IN = 64;
+    static final int MIN_BUFFER_SIZE = 1 << 12;
+    static final int MAX_BUFFER_SIZE = 1 << 23;
+
+    private final int runSize;
+    private final int fanIn;
+    private final int bufferSize;
+    private final File tempDirectory;
+
+    /**
+     *
+     * @param memoryBudget the number of bytes of heap the sort may use
+     * @param tempDirectory the directory for the sorted runs, or null for the
+     * system default temporary directory
+     */
+    public ExternalSort(long memoryBudget, File tempDirectory) {
+        this(memoryBudget, Integer.MAX_VALUE, DEFAULT_FAN_IN, tempDirectory);
+    }
+
+    /**
+     *
+     * @param memoryBudget the number of bytes of heap the sort may use. It
+     * determines the run size (unless maxRunSize is smaller) and the size of
+     * the read buffer given to each run during a merge.
+     * @param maxRunSize the maximum number of Records sorted in memory at once
+     * @param fanIn the maximum number of runs merged at once. Inputs producing
+     * more runs than this are merged in several passes.
+     * @param tempDirectory the directory for the sorted runs, or null for the
+     * system default temporary directory
+     * @throws IllegalArgumentException if the budget leaves no room for at
+     * least one Record per run, if maxRunSize is less than 1 or if fanIn is
+     * less than 2
+     */
+    public ExternalSort(long memoryBudget, int maxRunSize, int fanIn, File tempDirectory) {
+
+        if (maxRunSize < 1 || memoryBudget < ESTIMATED_RECORD_BYTES) {
+            throw new IllegalArgumentException("the run size must be at least one record");
+        }
+
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("the fan-in must be at least 2");
+        }
+
+        this.runSize = (int) Math.min(maxRunSize, Math.min(Integer.MAX_VALUE - 8,
+                memoryBudget / ESTIMATED_RECORD_BYTES));
+        this.fanIn = fanIn;
+        this.bufferSize = (int) Math.max(MIN_BUFFER_SIZE,
+                Math.min(MAX_BUFFER_SIZE, memoryBudget / (fanIn + 1)));
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     *
+     * Sort the Records of one file into another.
+     *
+     * @param input the file to be sorted
+     * @param output the file the sorted Records are written to. It may not be
+     * the same file as input.
+     * @throws IOException if reading, writing or creating a temporary file
+     * fails. Temporary files are removed either way.
+     * @throws IllegalArgumentException if input and output are the same file
+     */
+    public void sort(File input, File output) throws IOException {
+
+        if (output.exists() && Files.isSameFile(input.toPath(), output.toPath())) {
+            throw new IllegalArgumentException("input and output are the same file");
+        }
+
+        List<File> temporary = new ArrayList<File>();
+
+        try {
+            List<File> runs = createRuns(input, temporary);
+
+            while (runs.size() > fanIn) {
+
+                List<File> merged = new ArrayList<File>();
+
+                for (int i = 0; i < runs.size(); i += fanIn) {
+
+                    List<File> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+
+                    File run = createTemporary(temporary);
+
+                    merge(group, run);
+
+                    merged.add(run);
+
+                    for (File f : group) {
+                        f.delete();
+                    }
+                }
+
+                runs = merged;
+            }
+
+            merge(runs, output);
+        } finally {
+            for (File f : temporary) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     *
+     * Split the input into sorted runs of at most runSize Records.
+     *
+     * @param input the file to be sorted
+     * @param temporary the list every temporary file is registered in
+     * @return the run files, in input order
+     */
+    private List<File> createRuns(File input, List<File> temporary) throws IOException {
+
+        List<File> runs = new ArrayList<File>();
+
+        Record[] chunk = new Record[runSize], scratch = null;
+
+        try (DataInputStream in = open(input)) {
+
+            int n;
+
+            do {
+                Record r;
+
+                n = 0;
+
+                while (n < runSize && (r = read(in)) != null) {
+                    chunk[n++] = r;
+                }
+
+                if (n == 0) {
+                    break;
+                }
+
+                Record[] run = n == runSize ? chunk : Arrays.copyOf(chunk, n);
+
+                if (scratch == null) {
+                    scratch = new Record[run.length];
+                }
+
+                SortingAndSelection.mergeSort(run, scratch);
+
+                File f = createTemporary(temporary);
+
+                try (DataOutputStream out = create(f)) {
+
+                    for (Record s : run) {
+                        write(out, s);
+                    }
+                }
+
+                runs.add(f);
+            } while (n == runSize);
+        }
+
+        return runs;
+    }
+
+    private File createTemporary(List<File> temporary) throws IOException {
+
+        File f = File.createTempFile("run", ".tmp", tempDirectory);
+
+        temporary.add(f);
+
+        return f;
+    }
+
+    /**
+     *
+     * Merge sorted runs into a single file.
+     *
+     * @param runs the run files, in input order
+     * @param output the file the merged run is written to
+     */
+    private void merge(List<File> runs, File output) throws IOException {
+
+        MinHeap heap = new MinHeap(runs.size());
+
+        RunHead[] heads = new RunHead[runs.size()];
+
+        Throwable failure = null;
+
+        try (DataOutputStream out = create(output)) {
+
+            for (int i = 0; i < heads.length; ++i) {
+
+                heads[i] = new RunHead(i, open(runs.get(i)));
+
+                if (heads[i].advance()) {
+                    heap.add(heads[i]);
+                }
+            }
+
+            while (!heap.isEmpty()) {
+
+                RunHead h = (RunHead) heap.peek();
+
+                write(out, h);
+
+                /*The head now holds the next Record of its run; put it back
+                 * in place with a single bubbleDown*/
+                if (h.advance()) {
+                    heap.replaceTop(h);
+                } else {
+                    heap.remove();
+                }
+            }
+        } catch (Throwable t) {
+
+            failure = t;
+
+            throw t;
+        } finally {
+            closeAll(heads, failure);
+        }
+    }
+
+    /**
+     *
+     * Close the stream of every run head, even if closing an earlier one
+     * fails. If the merge itself failed, the exceptions thrown by close are
+     * added to that failure as suppressed exceptions, which is then the one
+     * that propagates; otherwise the first of them is thrown once every
+     * stream has been closed, with the others suppressed in it.
+     *
+     * @param heads the run heads, some of which may not have been opened
+     * @param failure the exception the merge failed with, or null
+     */
+    private static void closeAll(RunHead[] heads, Throwable failure) throws IOException {
+
+        IOException first = null;
+
+        for (RunHead h : heads) {
+
+            if (h == null) {
+                continue;
+            }
+
+            try {
+                h.in.close();
+            } catch (IOException e) {
+
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else if (first == null) {
+                    first = e;
+                } else {
+                    first.addSuppressed(e);
+                }
+            }
+        }
+
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    private DataInputStream open(File f) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(f), bufferSize));
+    }
+
+    private DataOutputStream create(File f) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), bufferSize));
+    }
+
+    /**
+     *
+     * Write a Record in the file format used by this class.
+     *
+     * @param out the stream to write to
+     * @param r the Record to write. Its value must not encode to more than
+     * 65535 bytes of modified UTF-8.
+     * @throws IOException if writing fails
+     */
+    public static void write(DataOutputStream out, Record r) throws IOException {
+
+        out.writeInt(r.getKey());
+        out.writeUTF(r.value);
+    }
+
+    /**
+     *
+     * Read a Record written by {@link #write(DataOutputStream, Record)}.
+     *
+     * @param in the stream to read from
+     * @return the next Record, or null if the stream ended cleanly before it
+     * @throws IOException if reading fails or the stream ends in the middle of
+     * a Record
+     */
+    public static Record read(DataInputStream in) throws IOException {
+
+        int b = in.read();
+
+        if (b < 0) {
+            return null;
+        }
+
+        return new Record(readKey(in, b), in.readUTF());
+    }
+
+    /**
+     *
+     * @param in the stream to read from
+     * @param b the first byte of the key, already read
+     * @return the int key whose remaining three bytes are read from in
+     */
+    private static int readKey(DataInputStream in, int b) throws IOException {
+        return (b << 24) | (in.readUnsignedByte() << 16)
+                | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+    }
+
+    /**
+     *
+     * The current Record of one run during a merge. The same object is reused
+     * for every Record of the run, and equal keys are ordered by run index so
+     * that the merge is stable. Its key and value are meaningless until the
+     * first advance.
+     *
+     * The merge heap holds nothing but RunHeads, which is what lets the merge
+     * cast the top of the heap back to a RunHead. compareTo does not rely on
+     * it: another Record is ordered by key alone.
+     */
+    private static final class RunHead extends Record {
+
+        final int run;
+        final DataInputStream in;
+
+        RunHead(int run, DataInputStream in) {
+
+            super(0, null);
+
+            this.run = run;
+            this.in = in;
+        }
+
+        /**
+         *
+         * @return {@code false} if the run is exhausted
+         */
+        boolean advance() throws IOException {
+
+            int b = in.read();
+
+            if (b < 0) {
+                return false;
+            }
+
+            key = readKey(in, b);
+            value = in.readUTF();
+
+            return true;
+        }
+
+        @Override
+        public int compareTo(Record r) {
+
+            int c = super.compareTo(r);
+
+            return c != 0 || !(r instanceof RunHead) ? c : Integer.compare(run, ((RunHead) r).run);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package sortingandselection;
+
+/**
+ *
+ * A read-only search index over a Record array sorted by key. The keys are
+ * copied into an int array in Eytzinger (breadth-first) order: the root of an
+ * implicit binary search tree is at index 1 and the children of node k are at
+ * 2k and 2k + 1. A search then walks down from the root without dereferencing
+ * any Record. The first levels of the tree, which every search visits, share
+ * a few cache lines at the start of the array, and the descent chooses each
+ * child with a conditional move rather than a branch, so a mispredicted
+ * comparison costs no pipeline flush.
+ *
+ * All queries answer with indices into the sorted array the index was built
+ * from. The index keeps no reference to that array, so changing the array
+ * afterwards does not change the index.
+ */
+public class EytzingerIndex {
+
+    private final int n;
+    /*keys[k] is the key of node k, and rank[k] the index in the sorted array
+     * of the Record it came from. rank[0] = n stands for "past the end"*/
+    private final int[] keys, rank;
+
+    /**
+     *
+     * @param a the Record array to index, sorted by key in ascending order
+     * @throws IllegalArgumentException if a is not sorted by key
+     */
+    public EytzingerIndex(Record[] a) {
+
+        n = a.length;
+
+        for (int i = 1; i < n; ++i) {
+            if (a[i - 1].key > a[i].key) {
+                throw new IllegalArgumentException("array not sorted at index " + i);
+            }
+        }
+
+        keys = new int[n + 1];
+        rank = new int[n + 1];
+
+        rank[0] = n;
+
+        build(a, 0, 1);
+    }
+
+    /**
+     *
+     * Fill the subtree rooted at node k with a[i], a[i + 1], ... in order.
+     *
+     * @return the index of the first Record not placed in the subtree
+     */
+    private int build(Record[] a, int i, int k) {
+
+        if (k <= n) {
+
+            i = build(a, i, k << 1);
+
+            keys[k] = a[i].key;
+            rank[k] = i++;
+
+            i = build(a, i, (k << 1) + 1);
+        }
+
+        return i;
+    }
+
+    /**
+     *
+     * @return the number of keys in the index
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     *
+     * @param key the key to search for
+     * @return the index in the sorted array of the first Record whose key is
+     * not less than key, or size() if there is none
+     */
+    public int lowerBound(int key) {
+
+        int k = 1;
+
+        while (k <= n) {
+            k = (k << 1) + (keys[k] < key ? 1 : 0);
+        }
+
+        return rank[lastLeftTurn(k)];
+    }
+
+    /**
+     *
+     * @param key the key to search for
+     * @return the index in the sorted array of the first Record whose key is
+     * greater than key, or size() if there is none
+     */
+    public int upperBound(int key) {
+
+        int k = 1;
+
+        while (k <= n) {
+            k = (k << 1) + (keys[k] <= key ? 1 : 0);
+        }
+
+        return rank[lastLeftTurn(k)];
+    }
+
+    /**
+     *
+     * @param key the key to search for
+     * @return a two-element array {lowerBound(key), upperBound(key)}: the
+     * Records with the given key are at the indices in between, and the range
+     * is empty if there are none
+     */
+    public int[] equalRange(int key) {
+        return new int[]{lowerBound(key), upperBound(key)};
+    }
+
+    /**
+     *
+     * The descent ends below a leaf, after the last node whose key passed the
+     * test. Every step right appended a 1 bit to k, and the answer is the node
+     * where the walk last went left: drop the trailing ones and the 0 before
+     * them. If the walk never went left the result is 0.
+     */
+    private static int lastLeftTurn(int k) {
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+}
\ No newline at end of file
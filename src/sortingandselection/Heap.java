@@ -7,18 +7,55 @@ package sortingandselection;
  * A basic binary heap data structure. This class is abstract so that inheriting
  * classes {@link MinHeap} and {@link MaxHeap} can implement their own versions
  * of the bubbleUp and bubbleDown methods.
+ *
+ * How the capacity follows the number of elements is set per heap by a
+ * {@link ResizePolicy}. The default, {@link ResizePolicy#HYSTERESIS}, shrinks
+ * a heap once less than a quarter of it is in use, to twice the number of
+ * elements. Heaps used to shrink as soon as less than half of them was in
+ * use, to 1.25 times the number of elements, which made a heap whose size
+ * hovered around that point reallocate on almost every add and remove.
  */
 public abstract class Heap {
 
     static final int DEFAULT_CAPACITY = 16;
-    static final double THRESHOLD = .5;
-    static final double OPTIMAL_RATIO = .8;
+    static final double THRESHOLD = .25;
+    static final double OPTIMAL_RATIO = .5;
     Record[] heap;
     int count;
+    ResizePolicy resizePolicy = ResizePolicy.HYSTERESIS;
+
+    /**
+     *
+     * How the capacity of a heap follows the number of elements in it.
+     */
+    public enum ResizePolicy {
+
+        /**
+         * The capacity never changes. Adding to a full heap throws an
+         * IllegalStateException.
+         */
+        FIXED,
+        /**
+         * The capacity grows when the heap is full and shrinks once less than
+         * a quarter of it is in use, to twice the number of elements. A heap
+         * that has just been shrunk has to double before it grows again and
+         * fall to a quarter before it shrinks again, so bursty workloads do
+         * not keep reallocating the heap array. This is the default; it
+         * replaced shrinking to 1.25 times the number of elements as soon as
+         * less than half of the heap was in use.
+         */
+        HYSTERESIS,
+        /**
+         * The capacity grows when the heap is full and never shrinks.
+         */
+        NEVER_SHRINK
+    }
 
     /**
      *
      * @param r The Record being added to the heap
+     * @throws IllegalStateException if the heap is full and its resize policy
+     * is {@link ResizePolicy#FIXED}
      */
     public void add(Record r) {
 
@@ -26,19 +63,102 @@ public abstract class Heap {
             growHeap();
         }
 
-        heap[++count] = r;
+        set(++count, r);
 
         if (count > 1) {
             bubbleUp(count);
         }
     }
 
+    /**
+     *
+     * Add every Record of an array. If the array is at least as large as the
+     * heap, the heap is rebuilt bottom-up in O(n) time; otherwise the Records
+     * are added one at a time, which is cheaper when few Records are added to
+     * a large heap.
+     *
+     * @param a the Records being added to the heap
+     * @throws IllegalStateException if the Records do not fit and the resize
+     * policy of the heap is {@link ResizePolicy#FIXED}. No Record is added in
+     * that case.
+     */
+    public void addAll(Record[] a) {
+
+        int m = a.length;
+
+        if (count + (long) m > heap.length - 1) {
+
+            if (resizePolicy == ResizePolicy.FIXED) {
+                throw new IllegalStateException("the heap is full");
+            }
+
+            resize(count + m);
+        }
+
+        boolean rebuild = m >= count;
+
+        for (Record r : a) {
+
+            set(++count, r);
+
+            if (!rebuild) {
+                bubbleUp(count);
+            }
+        }
+
+        if (rebuild) {
+            heapify();
+        }
+    }
+
     /**
      *
      * @return the Record removed from the heap, or null if the Record was not
      * found.
      */
-    public Record remove() { /*return null if heap is empty*/
+    public Record remove() {
+
+        Record top = removeTop();
+
+        shrinkIfSparse();
+
+        return top;
+    }
+
+    /**
+     *
+     * Remove every Record from the heap, in the order remove would return
+     * them. The capacity is adjusted once at the end rather than during the
+     * drain.
+     *
+     * @param dst the array the Records are written to, from index 0
+     * @return the number of Records removed
+     * @throws IllegalArgumentException if dst is shorter than the heap
+     */
+    public int drainTo(Record[] dst) {
+
+        int n = count;
+
+        if (dst.length < n) {
+            throw new IllegalArgumentException("destination array is shorter than the heap");
+        }
+
+        for (int i = 0; i < n; ++i) {
+            dst[i] = removeTop();
+        }
+
+        shrinkIfSparse();
+
+        return n;
+    }
+
+    /**
+     *
+     * Remove the top element without adjusting the capacity of the heap.
+     *
+     * @return the Record removed from the heap, or null if the heap is empty
+     */
+    Record removeTop() { /*return null if heap is empty*/
 
         if (count > 0) {
 
@@ -52,35 +172,136 @@ public abstract class Heap {
                 bubbleDown(1);
             }
 
-            double r = (double) count / (double) (heap.length - 1);
-
-            if (r < THRESHOLD && heap.length - 1 > DEFAULT_CAPACITY) {
-                shrinkHeap();
-            }
-
             return top;
         }
 
         return null;
     }
 
+    /**
+     *
+     * Replace the top element of the heap with another Record. This has the
+     * same effect as a remove followed by an add, but the heap is restored
+     * with a single bubbleDown and its capacity never changes.
+     *
+     * @param r the Record to put in place of the top element
+     * @return the Record that was at the top of the heap, or null if the heap
+     * was empty, in which case r is simply added.
+     */
+    public Record replaceTop(Record r) {
+
+        if (count == 0) {
+
+            add(r);
+
+            return null;
+        }
+
+        Record top = heap[1];
+
+        set(1, r);
+
+        bubbleDown(1);
+
+        return top;
+    }
+
+    /**
+     *
+     * @return the Record at the top of the heap without removing it, or null
+     * if the heap is empty.
+     */
+    public Record peek() {
+        return count > 0 ? heap[1] : null;
+    }
+
+    /**
+     *
+     * @param policy how the capacity of the heap follows its size from now on
+     */
+    public void setResizePolicy(ResizePolicy policy) {
+
+        if (policy == null) {
+            throw new IllegalArgumentException("resize policy must not be null");
+        }
+
+        resizePolicy = policy;
+    }
+
+    /**
+     *
+     * @return how the capacity of the heap follows its size
+     */
+    public ResizePolicy getResizePolicy() {
+        return resizePolicy;
+    }
+
+    /**
+     *
+     * @return the number of elements the heap can hold before it has to grow
+     */
+    public int capacity() {
+        return heap.length - 1;
+    }
+
     abstract void bubbleUp(int i);
 
     abstract void bubbleDown(int i);
 
+    /**
+     *
+     * Put a Record at an index of the heap array. Subclasses that keep data
+     * about every Record alongside the heap array override it.
+     */
+    void set(int i, Record r) {
+        heap[i] = r;
+    }
+
+    /**
+     *
+     * Exchange the Records at two indices of the heap array. The bubbleUp and
+     * bubbleDown methods of {@link MinHeap} and {@link MaxHeap} move Records
+     * only through this method, so subclasses can override it to keep track
+     * of where every Record is.
+     */
+    void swap(int i, int j) {
+
+        Record t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
     /**
      *
      * Increase the size of the heap
+     *
+     * @throws IllegalStateException if the resize policy is
+     * {@link ResizePolicy#FIXED}
      */
     void growHeap() {
 
-        int newCapacity = (count > 1024) ? count + (count >> 2) : count << 1;
+        if (resizePolicy == ResizePolicy.FIXED) {
+            throw new IllegalStateException("the heap is full");
+        }
 
-        Record[] newHeap = new Record[newCapacity + 1];
+        int newCapacity = (count > 1024) ? count + (count >> 2) : Math.max(1, count << 1);
 
-        System.arraycopy(heap, 0, newHeap, 0, heap.length);
+        resize(newCapacity);
+    }
 
-        heap = newHeap;
+    /**
+     *
+     * Decrease the size of the heap if the resize policy allows it and too
+     * little of it is in use after a removal
+     */
+    void shrinkIfSparse() {
+
+        double r = (double) count / (double) (heap.length - 1);
+
+        if (resizePolicy == ResizePolicy.HYSTERESIS && r < THRESHOLD
+                && heap.length - 1 > DEFAULT_CAPACITY) {
+            shrinkHeap();
+        }
     }
 
     /**
@@ -88,12 +309,21 @@ public abstract class Heap {
      * Decrease the size of the heap
      */
     void shrinkHeap() {
+        resize(Math.max(DEFAULT_CAPACITY, (int) (count / OPTIMAL_RATIO)));
+    }
 
-        int newCapacity = (int) (count / OPTIMAL_RATIO);
+    /**
+     *
+     * Reallocate the heap array. Subclasses keeping arrays parallel to the
+     * heap array override this to resize them as well.
+     *
+     * @param capacity the new capacity, not less than the number of elements
+     */
+    void resize(int capacity) {
 
-        Record[] newHeap = new Record[newCapacity + 1];
+        Record[] newHeap = new Record[capacity + 1];
 
-        System.arraycopy(heap, 0, newHeap, 0, newHeap.length);
+        System.arraycopy(heap, 0, newHeap, 0, count + 1);
 
         heap = newHeap;
     }
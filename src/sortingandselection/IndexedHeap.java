@@ -0,0 +1,309 @@
+package sortingandselection;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A binary heap that tracks the position of every Record, so that a Record
+ * anywhere in the heap can have its key changed or be removed in O(log n)
+ * time, and membership is tested in O(1) time. Records are identified by the
+ * int handle returned when they are inserted; the handle is valid until the
+ * Record leaves the heap, after which it may be reused. A Record put in place
+ * by replaceTop takes over the handle of the old top.
+ *
+ * Two arrays map handles to heap indices and back. The bubbleUp and bubbleDown
+ * methods move Records only through swap, which keeps both arrays current, so
+ * the position of a Record is found in constant time.
+ *
+ * This lets priority queues whose priorities change, such as the frontier of
+ * Dijkstra's algorithm, decrease a key in place instead of adding a second
+ * entry and skipping stale ones later. Min and max heaps are created by
+ * {@link #min()} and {@link #max()} and their overloads; the two share every
+ * method.
+ */
+public final class IndexedHeap extends Heap {
+
+    /*true for a max heap, whose comparisons take their operands in reverse*/
+    private final boolean max;
+    /*handleAt[i] is the handle of heap[i]; pos[handle] is its heap index, or
+     * 0 if the handle is not in use*/
+    private int[] handleAt, pos, free;
+    private int freeCount, issued;
+
+    /**
+     *
+     * @return an empty min heap: the Record with the smallest key is at the
+     * top
+     */
+    public static IndexedHeap min() {
+        return new IndexedHeap(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     *
+     * @param initialCapacity the number of Records to reserve space for
+     * @return an empty min heap
+     */
+    public static IndexedHeap min(int initialCapacity) {
+        return new IndexedHeap(initialCapacity, false);
+    }
+
+    /**
+     *
+     * @return an empty max heap: the Record with the largest key is at the top
+     */
+    public static IndexedHeap max() {
+        return new IndexedHeap(DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     *
+     * @param initialCapacity the number of Records to reserve space for
+     * @return an empty max heap
+     */
+    public static IndexedHeap max(int initialCapacity) {
+        return new IndexedHeap(initialCapacity, true);
+    }
+
+    private IndexedHeap(int initialCapacity, boolean max) {
+
+        this.max = max;
+
+        heap = new Record[Math.max(1, initialCapacity) + 1];
+        handleAt = new int[heap.length];
+        pos = new int[heap.length];
+        free = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     *
+     * @param r the Record being added to the heap
+     * @return the handle that identifies r while it is in the heap
+     * @throws IllegalStateException if the heap is full and its resize policy
+     * is {@link ResizePolicy#FIXED}
+     */
+    public int insert(Record r) {
+
+        if (count == heap.length - 1) {
+            growHeap();
+        }
+
+        heap[++count] = r;
+
+        int handle = freeCount > 0 ? free[--freeCount] : issued++;
+
+        if (handle == pos.length) {
+            pos = Arrays.copyOf(pos, handle << 1);
+        }
+
+        pos[handle] = count;
+        handleAt[count] = handle;
+
+        bubbleUp(count);
+
+        return handle;
+    }
+
+    @Override
+    public void add(Record r) {
+        insert(r);
+    }
+
+    /**
+     *
+     * Add every Record of an array, one at a time so that each gets a handle.
+     */
+    @Override
+    public void addAll(Record[] a) {
+
+        for (Record r : a) {
+            insert(r);
+        }
+    }
+
+    /**
+     *
+     * @param handle the handle of a Record in the heap
+     * @return the Record, removed from the heap
+     * @throws IllegalArgumentException if no Record in the heap has the handle
+     */
+    public Record remove(int handle) {
+
+        Record r = removeHandle(handle);
+
+        shrinkIfSparse();
+
+        return r;
+    }
+
+    /**
+     *
+     * Set the key of a Record in the heap and restore the heap order. The key
+     * is written to the Record itself, so any other structure holding the
+     * same Record sees the new key as well.
+     *
+     * @param handle the handle of a Record in the heap
+     * @param newKey the new key of the Record
+     * @throws IllegalArgumentException if no Record in the heap has the handle
+     */
+    public void changeKey(int handle, int newKey) {
+
+        int i = position(handle);
+
+        heap[i].key = newKey;
+
+        /*At most one of the two calls moves the Record*/
+        bubbleUp(i);
+        bubbleDown(i);
+    }
+
+    /**
+     *
+     * @param handle a handle
+     * @return {@code true} if a Record in the heap has the handle
+     */
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < issued && pos[handle] != 0;
+    }
+
+    /**
+     *
+     * @param handle the handle of a Record in the heap
+     * @return the Record with the handle
+     * @throws IllegalArgumentException if no Record in the heap has the handle
+     */
+    public Record get(int handle) {
+        return heap[position(handle)];
+    }
+
+    /**
+     *
+     * @return the handle of the Record at the top of the heap, or -1 if the
+     * heap is empty
+     */
+    public int peekHandle() {
+        return count > 0 ? handleAt[1] : -1;
+    }
+
+    /**
+     *
+     * @return the top Record, removed from the heap, or null if it is empty.
+     * The capacity of the heap is left unchanged.
+     */
+    @Override
+    Record removeTop() {
+        return count > 0 ? removeHandle(handleAt[1]) : null;
+    }
+
+    /**
+     *
+     * @param handle the handle of the Record to remove
+     * @return the removed Record. The capacity of the heap is left unchanged.
+     */
+    private Record removeHandle(int handle) {
+
+        int i = position(handle);
+
+        Record r = heap[i];
+
+        /*Fill the hole with the last Record, which may belong above or below
+         * the hole, and restore the heap from there*/
+        swap(i, count);
+
+        heap[count--] = null;
+
+        pos[handle] = 0;
+
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount << 1);
+        }
+
+        free[freeCount++] = handle;
+
+        if (i <= count) {
+            bubbleUp(i);
+            bubbleDown(i);
+        }
+
+        return r;
+    }
+
+    /**
+     *
+     * @return the heap index of the Record with the given handle
+     * @throws IllegalArgumentException if no Record in the heap has the handle
+     */
+    private int position(int handle) {
+
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("no element with handle " + handle);
+        }
+
+        return pos[handle];
+    }
+
+    /**
+     *
+     * @return {@code true} if a belongs above b in this heap
+     */
+    private boolean above(Record a, Record b) {
+        return (max ? b.compareTo(a) : a.compareTo(b)) < 0;
+    }
+
+    @Override
+    void bubbleUp(int i) {
+
+        while (i > 1 && above(heap[i], heap[i >> 1])) {
+
+            swap(i, i >> 1);
+
+            i >>= 1;
+        }
+    }
+
+    @Override
+    void bubbleDown(int i) {
+
+        int j;
+
+        while (2 * i <= count) {
+
+            /*'j' denotes the child that belongs higher*/
+            j = 2 * i;
+
+            if (j < count && above(heap[j + 1], heap[j])) {
+                ++j;
+            }
+
+            if (!above(heap[j], heap[i])) {
+                return;
+            }
+
+            swap(i, j);
+
+            i = j;
+        }
+    }
+
+    @Override
+    void swap(int i, int j) {
+
+        super.swap(i, j);
+
+        int a = handleAt[i], b = handleAt[j];
+
+        handleAt[i] = b;
+        handleAt[j] = a;
+
+        pos[a] = j;
+        pos[b] = i;
+    }
+
+    @Override
+    void resize(int capacity) {
+
+        super.resize(capacity);
+
+        handleAt = Arrays.copyOf(handleAt, heap.length);
+    }
+}
\ No newline at end of file
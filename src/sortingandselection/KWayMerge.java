@@ -0,0 +1,218 @@
+package sortingandselection;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *
+ * Lazily merges k sorted runs of Records, given either as arrays or as
+ * {@link RecordLinkedList}s, into a single sorted sequence.
+ *
+ * The runs compete in a loser tree (tournament tree): every internal node
+ * remembers the run that lost the match played there and the overall winner
+ * is kept at the root. After the winner's Record is emitted only the matches
+ * on the path from its leaf to the root are replayed, which costs exactly
+ * ceil(log2 k) comparisons, about half of what a binary heap's bubbleDown
+ * needs since it compares against both children at every level. Records with
+ * equal keys are emitted in the order of their runs, so the merge is stable.
+ *
+ * Records are produced one at a time by {@link #next()}, so a downstream stage
+ * can start consuming before the merge has finished. The inputs are only read;
+ * for linked lists the successor of a Record is read before the Record is
+ * emitted, so the caller is free to relink emitted Records.
+ */
+public abstract class KWayMerge implements Iterator<Record> {
+
+    private final int k;
+    private final int[] tree;
+    private final Record[] heads;
+
+    KWayMerge(int k) {
+
+        this.k = k;
+
+        tree = new int[Math.max(1, k)];
+        heads = new Record[k];
+    }
+
+    /**
+     *
+     * @param runs the sorted Record arrays to merge
+     * @return an iterator over the Records of all runs in sorted order
+     */
+    public static KWayMerge of(Record[]... runs) {
+
+        KWayMerge m = new ArrayMerge(runs);
+
+        m.start();
+
+        return m;
+    }
+
+    /**
+     *
+     * @param lists the sorted lists to merge
+     * @return an iterator over the Records of all lists in sorted order
+     */
+    public static KWayMerge of(RecordLinkedList... lists) {
+
+        KWayMerge m = new ListMerge(lists);
+
+        m.start();
+
+        return m;
+    }
+
+    /**
+     *
+     * @param run the index of a run
+     * @return the next Record of the run, or null if it is exhausted
+     */
+    abstract Record advance(int run);
+
+    /**
+     *
+     * Load the first Record of every run and play the initial tournament.
+     */
+    final void start() {
+
+        for (int i = 0; i < k; ++i) {
+            heads[i] = advance(i);
+        }
+
+        if (k > 0) {
+            tree[0] = build(1);
+        }
+    }
+
+    /**
+     *
+     * Play the matches of the subtree rooted at a node. Leaves are the nodes
+     * k to 2k - 1, one per run.
+     *
+     * @return the run that wins the subtree
+     */
+    private int build(int node) {
+
+        if (node >= k) {
+            return node - k;
+        }
+
+        int l = build(2 * node), r = build(2 * node + 1);
+
+        if (beats(l, r)) {
+
+            tree[node] = r;
+
+            return l;
+        }
+
+        tree[node] = l;
+
+        return r;
+    }
+
+    /**
+     *
+     * @return {@code true} if the head of run a must be emitted before the
+     * head of run b. Exhausted runs lose to every other run.
+     */
+    private boolean beats(int a, int b) {
+
+        Record x = heads[a], y = heads[b];
+
+        if (x == null) {
+            return false;
+        }
+
+        if (y == null) {
+            return true;
+        }
+
+        int c = x.compareTo(y);
+
+        return c < 0 || (c == 0 && a < b);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return k > 0 && heads[tree[0]] != null;
+    }
+
+    @Override
+    public Record next() {
+
+        int w = tree[0];
+
+        Record r = k > 0 ? heads[w] : null;
+
+        if (r == null) {
+            throw new NoSuchElementException();
+        }
+
+        heads[w] = advance(w);
+
+        /*Replay the matches on the path from the winner's leaf to the root*/
+        for (int node = (w + k) >> 1; node > 0; node >>= 1) {
+
+            if (beats(tree[node], w)) {
+
+                int t = tree[node];
+                tree[node] = w;
+                w = t;
+            }
+        }
+
+        tree[0] = w;
+
+        return r;
+    }
+
+    private static final class ArrayMerge extends KWayMerge {
+
+        private final Record[][] runs;
+        private final int[] positions;
+
+        ArrayMerge(Record[][] runs) {
+
+            super(runs.length);
+
+            this.runs = runs;
+
+            positions = new int[runs.length];
+        }
+
+        @Override
+        Record advance(int run) {
+            return positions[run] < runs[run].length ? runs[run][positions[run]++] : null;
+        }
+    }
+
+    private static final class ListMerge extends KWayMerge {
+
+        private final Record[] cursors;
+
+        ListMerge(RecordLinkedList[] lists) {
+
+            super(lists.length);
+
+            cursors = new Record[lists.length];
+
+            for (int i = 0; i < lists.length; ++i) {
+                cursors[i] = lists[i].getFirstRecord();
+            }
+        }
+
+        @Override
+        Record advance(int run) {
+
+            Record r = cursors[run];
+
+            if (r != null) {
+                cursors[run] = r.next;
+            }
+
+            return r;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,220 @@
+package sortingandselection;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *
+ * Sorts files of compact binary records without turning them into Record
+ * objects.
+ *
+ * Each record is laid out as a 4-byte big-endian int key, a 4-byte big-endian
+ * value length and then the value bytes, with no padding between records (see
+ * {@link #write(DataOutputStream, int, byte[])}). The input file is memory
+ * mapped, so it is read through the page cache without being copied onto the
+ * heap. A first pass over the mapping records the key and file offset of every
+ * record; only these are sorted, 16 bytes per record, after which the
+ * payloads are streamed from the mapping to the output file in key order.
+ * Records with equal keys keep their input order.
+ */
+public class MappedRecordSorter {
+
+    /**
+     * The number of bytes in front of every value: the key and the value
+     * length.
+     */
+    public static final int HEADER_BYTES = 8;
+    static final int SEGMENT_BITS = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     *
+     * Private constructor to prevent instantiation of Objects of this class
+     */
+    private MappedRecordSorter() {
+    }
+
+    /**
+     *
+     * Write a record in the binary layout read by this class.
+     *
+     * @param out the stream to write to
+     * @param key the key of the record
+     * @param value the value of the record
+     * @throws IOException if writing fails
+     */
+    public static void write(DataOutputStream out, int key, byte[] value) throws IOException {
+
+        out.writeInt(key);
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     *
+     * Sort a file of binary records into another file.
+     *
+     * @param input the file to be sorted. It is mapped in segments of
+     * {@value #SEGMENT_SIZE} bytes, so it may be larger than 2 GB; the number
+     * of records is limited to Integer.MAX_VALUE - 8.
+     * @param output the file the sorted records are written to. It may not be
+     * the same file as input.
+     * @throws IOException if reading or writing fails, or if the input does
+     * not consist of whole records
+     * @throws IllegalArgumentException if input and output are the same file
+     */
+    public static void sort(File input, File output) throws IOException {
+
+        /*The output is truncated before the input is mapped*/
+        if (output.exists() && Files.isSameFile(input.toPath(), output.toPath())) {
+            throw new IllegalArgumentException("input and output are the same file");
+        }
+
+        try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(output.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            long size = in.size();
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+
+            for (int i = 0; i < segments.length; ++i) {
+
+                long start = (long) i << SEGMENT_BITS;
+
+                segments[i] = in.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+
+            /*Pack each key with the ordinal of its record so that sorting the
+             * longs orders the records by key and, among equal keys, by input
+             * position*/
+            long[] keys = new long[1024], offsets = new long[1024];
+
+            int n = 0;
+
+            for (long pos = 0; pos < size; ++n) {
+
+                if (size - pos < HEADER_BYTES) {
+                    throw new IOException("truncated record header at offset " + pos);
+                }
+
+                int key = getInt(segments, pos), length = getInt(segments, pos + 4);
+
+                if (length < 0 || length > size - pos - HEADER_BYTES) {
+                    throw new IOException("invalid value length " + length + " at offset " + pos);
+                }
+
+                if (n == keys.length) {
+
+                    int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) n << 1);
+
+                    if (capacity == n) {
+                        throw new IOException("too many records");
+                    }
+
+                    keys = Arrays.copyOf(keys, capacity);
+                    offsets = Arrays.copyOf(offsets, capacity);
+                }
+
+                keys[n] = ((long) key << 32) | n;
+                offsets[n] = pos;
+
+                pos += HEADER_BYTES + length;
+            }
+
+            keys = Arrays.copyOf(keys, n);
+
+            SortingAndSelection.sort(keys);
+
+            /*One reusable view per segment, so copying allocates nothing*/
+            ByteBuffer[] views = new ByteBuffer[segments.length];
+
+            for (int i = 0; i < views.length; ++i) {
+                views[i] = segments[i].duplicate();
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+            for (int i = 0; i < n; ++i) {
+
+                long pos = offsets[(int) keys[i]];
+
+                copy(views, pos, HEADER_BYTES + getInt(segments, pos + 4), buffer, out);
+            }
+
+            flush(buffer, out);
+        }
+    }
+
+    /**
+     *
+     * @return the big-endian int at the given file position, which may span
+     * two segments
+     */
+    private static int getInt(MappedByteBuffer[] segments, long pos) {
+
+        int s = (int) (pos >>> SEGMENT_BITS), o = (int) (pos & (SEGMENT_SIZE - 1));
+
+        if (o + 4 <= segments[s].limit()) {
+            return segments[s].getInt(o);
+        }
+
+        int v = 0;
+
+        for (int i = 0; i < 4; ++i, ++pos) {
+            v = (v << 8) | (segments[(int) (pos >>> SEGMENT_BITS)].get((int) (pos & (SEGMENT_SIZE - 1))) & 0xFF);
+        }
+
+        return v;
+    }
+
+    /**
+     *
+     * Copy length bytes starting at a file position into the output buffer,
+     * flushing the buffer to the output channel whenever it fills up.
+     */
+    private static void copy(ByteBuffer[] views, long pos, int length, ByteBuffer buffer,
+            FileChannel out) throws IOException {
+
+        while (length > 0) {
+
+            int s = (int) (pos >>> SEGMENT_BITS), o = (int) (pos & (SEGMENT_SIZE - 1));
+
+            ByteBuffer v = views[s];
+
+            int chunk = Math.min(length, Math.min(v.capacity() - o, buffer.remaining()));
+
+            v.clear();
+            v.position(o);
+            v.limit(o + chunk);
+
+            buffer.put(v);
+
+            if (!buffer.hasRemaining()) {
+                flush(buffer, out);
+            }
+
+            pos += chunk;
+            length -= chunk;
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel out) throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
\ No newline at end of file
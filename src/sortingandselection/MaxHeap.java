@@ -25,9 +25,7 @@ public class MaxHeap extends Heap {
 
         count = a.length;
 
-        for (int i = 0; i < a.length; ++i) {
-            heap[i + 1] = a[i];
-        }
+        System.arraycopy(a, 0, heap, 1, a.length);
 
         heapify();
     }
@@ -41,13 +39,9 @@ public class MaxHeap extends Heap {
     @Override
     void bubbleUp(int i) {
 
-        Record t;
-
         while (i > 1 && heap[i].compareTo(heap[i >> 1]) > 0) {
 
-            t = heap[i];
-            heap[i] = heap[i >> 1];
-            heap[i >> 1] = t;
+            swap(i, i >> 1);
 
             i >>= 1;
         }
@@ -63,8 +57,6 @@ public class MaxHeap extends Heap {
     @Override
     void bubbleDown(int i) {
 
-        Record t;
-
         int j;
 
         while (2 * i <= count) {
@@ -82,9 +74,7 @@ public class MaxHeap extends Heap {
                 return;
             }
 
-            t = heap[i];
-            heap[i] = heap[j];
-            heap[j] = t;
+            swap(i, j);
 
             i = j;
         }
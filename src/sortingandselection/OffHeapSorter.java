@@ -0,0 +1,477 @@
+package sortingandselection;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * A sort buffer for (int key, byte[] value) pairs that lives entirely outside
+ * the Java heap, so that sorting very large datasets puts no pressure on the
+ * garbage collector.
+ *
+ * Values are appended back to back to an off-heap store, and a second store
+ * holds the offset of every value, so the length of a value is the distance to
+ * the next offset. A third store holds one 8-byte entry per pair: the key with
+ * its sign bit flipped in the upper half (so that unsigned digits order the
+ * keys as signed ints) and the ordinal of the pair in the lower half. Sorting
+ * is an LSD radix sort over the key bytes of the entries that moves entries
+ * between two stores; the values are never moved. The sorted pairs are read
+ * back with a {@link Cursor}, which exposes the key and value of the current
+ * entry without creating a Record or any other object per element. The only
+ * heap allocations made are fixed-size histograms and a few small objects per
+ * segment.
+ *
+ * Each store is a list of direct buffers of up to {@value #SEGMENT_SIZE} bytes
+ * addressed by a long offset, so the values may total far more than the 2 GB
+ * a single buffer can hold. The number of pairs is limited to
+ * Integer.MAX_VALUE.
+ *
+ * The stores are released by {@link #close()}, which should be called (or the
+ * sorter used in a try-with-resources statement) as soon as the sorted pairs
+ * have been read: the native memory of a direct buffer is only returned once
+ * the garbage collector finds the buffer unreachable.
+ *
+ * Stable: pairs with equal keys keep the order they were added in.
+ */
+public class OffHeapSorter implements AutoCloseable {
+
+    static final int ENTRY_BYTES = 8;
+    static final int OFFSET_BYTES = 8;
+    static final int SEGMENT_BITS = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    private Segments entries, scratch, offsets, values;
+    private int count;
+    private long valueEnd;
+
+    /**
+     *
+     * @param capacity the number of pairs to reserve space for
+     * @param valueCapacity the number of value bytes to reserve space for
+     */
+    public OffHeapSorter(int capacity, long valueCapacity) {
+
+        entries = new Segments(Math.max(1, capacity) * (long) ENTRY_BYTES);
+        offsets = new Segments((Math.max(1, capacity) + 1L) * OFFSET_BYTES);
+        values = new Segments(Math.max(1, valueCapacity));
+    }
+
+    /**
+     *
+     * Add a pair. The reserved space grows as needed by allocating larger
+     * direct buffers, or further segments once a store exceeds one segment.
+     *
+     * @param key the key of the pair
+     * @param value the value of the pair; its bytes are copied
+     * @throws IllegalStateException if the sorter already holds
+     * Integer.MAX_VALUE pairs, or has been closed
+     */
+    public void add(int key, byte[] value) {
+        add(key, value, 0, value.length);
+    }
+
+    /**
+     *
+     * Add a pair whose value is a slice of an array.
+     *
+     * @param key the key of the pair
+     * @param value the array holding the value; its bytes are copied
+     * @param offset the index of the first value byte
+     * @param length the number of value bytes
+     * @throws IllegalStateException if the sorter already holds
+     * Integer.MAX_VALUE pairs, or has been closed
+     */
+    public void add(int key, byte[] value, int offset, int length) {
+
+        ensureOpen();
+
+        if (count == Integer.MAX_VALUE) {
+            throw new IllegalStateException("an off-heap sorter holds at most " + Integer.MAX_VALUE + " pairs");
+        }
+
+        entries.ensure((count + 1L) * ENTRY_BYTES);
+        offsets.ensure((count + 2L) * OFFSET_BYTES);
+        values.ensure(valueEnd + length);
+
+        entries.putLong(count * (long) ENTRY_BYTES, ((long) (key ^ Integer.MIN_VALUE) << 32) | count);
+
+        values.put(valueEnd, value, offset, length);
+
+        valueEnd += length;
+
+        /*offsets[i + 1] is both the end of value i and the start of value
+         * i + 1*/
+        offsets.putLong(++count * (long) OFFSET_BYTES, valueEnd);
+    }
+
+    /**
+     *
+     * Sort the pairs by key. Each of the four key bytes takes one counting pass
+     * over the entries, and bytes that are the same for every key are skipped.
+     *
+     * @throws IllegalStateException if the sorter has been closed
+     */
+    public void sort() {
+
+        ensureOpen();
+
+        int n = count;
+
+        if (n < 2) {
+            return;
+        }
+
+        if (scratch == null) {
+            scratch = new Segments(n * (long) ENTRY_BYTES);
+        } else {
+            scratch.ensure(n * (long) ENTRY_BYTES);
+        }
+
+        int[] counts = new int[SortingAndSelection.RADIX_DIGITS * SortingAndSelection.RADIX];
+
+        for (int i = 0; i < n; ++i) {
+
+            int k = (int) (entries.getLong(i * (long) ENTRY_BYTES) >>> 32);
+
+            for (int d = 0; d < SortingAndSelection.RADIX_DIGITS; ++d) {
+                ++counts[d * SortingAndSelection.RADIX
+                        + ((k >>> (d * SortingAndSelection.RADIX_BITS)) & SortingAndSelection.RADIX_MASK)];
+            }
+        }
+
+        Segments src = entries, dst = scratch, t;
+
+        int first = (int) (entries.getLong(0) >>> 32);
+
+        for (int d = 0; d < SortingAndSelection.RADIX_DIGITS; ++d) {
+
+            int base = d * SortingAndSelection.RADIX, shift = 32 + d * SortingAndSelection.RADIX_BITS;
+
+            if (counts[base + ((first >>> (shift - 32)) & SortingAndSelection.RADIX_MASK)] == n) {
+                continue; /*every key has the same byte here*/
+            }
+
+            for (int b = base, total = 0, c; b < base + SortingAndSelection.RADIX; ++b) {
+
+                c = counts[b];
+                counts[b] = total;
+                total += c;
+            }
+
+            for (int i = 0; i < n; ++i) {
+
+                long e = src.getLong(i * (long) ENTRY_BYTES);
+
+                dst.putLong(counts[base + (int) ((e >>> shift) & SortingAndSelection.RADIX_MASK)]++ * (long) ENTRY_BYTES, e);
+            }
+
+            t = src;
+            src = dst;
+            dst = t;
+        }
+
+        /*Both stores belong to this sorter, so the result does not have to
+         * be copied back*/
+        entries = src;
+        scratch = dst;
+    }
+
+    /**
+     *
+     * @return a cursor positioned before the first pair, in the current order
+     * of the pairs (sorted if {@link #sort()} has been called since the last
+     * add). The cursor is invalidated by any later add, sort, clear or
+     * close.
+     * @throws IllegalStateException if the sorter has been closed
+     */
+    public Cursor cursor() {
+
+        ensureOpen();
+
+        return new Cursor();
+    }
+
+    /**
+     *
+     * @return the number of pairs added
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     *
+     * Remove every pair, keeping the reserved off-heap space for reuse.
+     */
+    public void clear() {
+
+        count = 0;
+        valueEnd = 0;
+    }
+
+    /**
+     *
+     * Release the off-heap stores by dropping every reference the sorter holds
+     * to them, so that their native memory is returned at the next garbage
+     * collection rather than once the sorter itself is collected. The sorter
+     * cannot be used afterwards, and neither can any cursor obtained from it;
+     * a cursor that is still reachable keeps the value store reachable too.
+     * Closing a closed sorter has no effect.
+     */
+    @Override
+    public void close() {
+
+        entries = scratch = offsets = values = null;
+        count = 0;
+        valueEnd = 0;
+    }
+
+    /**
+     *
+     * @throws IllegalStateException if the sorter has been closed
+     */
+    private void ensureOpen() {
+
+        if (entries == null) {
+            throw new IllegalStateException("the off-heap sorter has been closed");
+        }
+    }
+
+    /**
+     *
+     * Iterates over the pairs of the sorter. The key and value accessors refer
+     * to the pair the cursor was last advanced to.
+     */
+    public final class Cursor {
+
+        private final ByteBuffer[] readers = values.views();
+        private int i = -1, key, length;
+        private long offset;
+
+        private Cursor() {
+        }
+
+        /**
+         *
+         * Advance to the next pair.
+         *
+         * @return {@code false} if there are no more pairs
+         * @throws IllegalStateException if the sorter has been closed
+         */
+        public boolean next() {
+
+            ensureOpen();
+
+            if (i + 1 >= count) {
+
+                i = count;
+
+                return false;
+            }
+
+            long e = entries.getLong(++i * (long) ENTRY_BYTES);
+
+            int ordinal = (int) e;
+
+            key = (int) (e >>> 32) ^ Integer.MIN_VALUE;
+            offset = offsets.getLong(ordinal * (long) OFFSET_BYTES);
+            length = (int) (offsets.getLong((ordinal + 1L) * OFFSET_BYTES) - offset);
+
+            return true;
+        }
+
+        /**
+         *
+         * @return the key of the current pair
+         */
+        public int key() {
+            return key;
+        }
+
+        /**
+         *
+         * @return the length in bytes of the value of the current pair
+         */
+        public int valueLength() {
+            return length;
+        }
+
+        /**
+         *
+         * Copy the value of the current pair into an array.
+         *
+         * @param dst the array to copy into
+         * @param at the index in dst of the first value byte
+         * @return the number of bytes copied
+         */
+        public int copyValue(byte[] dst, int at) {
+
+            Segments.get(readers, offset, dst, at, length);
+
+            return length;
+        }
+
+        /**
+         *
+         * Copy the value of the current pair into a buffer at its position,
+         * e.g. an output buffer that is then written to a channel.
+         *
+         * @param dst the buffer to copy into
+         */
+        public void copyValue(ByteBuffer dst) {
+            Segments.get(readers, offset, dst, length);
+        }
+    }
+
+    /**
+     *
+     * A growable off-heap byte store addressed by long offsets. While it is
+     * smaller than a segment it is a single direct buffer that is reallocated
+     * at double the size as needed; beyond that, further segments of
+     * {@value #SEGMENT_SIZE} bytes are added. As the segment size is a multiple
+     * of 8, an aligned long never spans two segments.
+     */
+    private static final class Segments {
+
+        private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+        private long capacity;
+
+        Segments(long capacity) {
+
+            segments.add(ByteBuffer.allocateDirect((int) Math.min(capacity, SEGMENT_SIZE)));
+
+            this.capacity = segments.get(0).capacity();
+
+            ensure(capacity);
+        }
+
+        /**
+         *
+         * Grow the store to at least the given capacity, keeping its contents.
+         */
+        void ensure(long required) {
+
+            if (required <= capacity) {
+                return;
+            }
+
+            if (segments.size() == 1 && capacity < SEGMENT_SIZE) {
+
+                ByteBuffer b = segments.get(0),
+                        g = ByteBuffer.allocateDirect((int) Math.min(SEGMENT_SIZE, Math.max(required, capacity << 1)));
+
+                ByteBuffer src = b.duplicate();
+
+                src.clear();
+
+                g.put(src);
+
+                segments.set(0, g);
+
+                capacity = g.capacity();
+            }
+
+            while (capacity < required) {
+
+                segments.add(ByteBuffer.allocateDirect((int) SEGMENT_SIZE));
+
+                capacity += SEGMENT_SIZE;
+            }
+        }
+
+        long getLong(long pos) {
+            return segments.get((int) (pos >>> SEGMENT_BITS)).getLong((int) (pos & (SEGMENT_SIZE - 1)));
+        }
+
+        void putLong(long pos, long v) {
+            segments.get((int) (pos >>> SEGMENT_BITS)).putLong((int) (pos & (SEGMENT_SIZE - 1)), v);
+        }
+
+        /**
+         *
+         * Copy bytes from an array into the store, across segment boundaries.
+         * The positions of the segments are only ever used for these writes.
+         */
+        void put(long pos, byte[] src, int offset, int length) {
+
+            while (length > 0) {
+
+                ByteBuffer b = segments.get((int) (pos >>> SEGMENT_BITS));
+
+                int at = (int) (pos & (SEGMENT_SIZE - 1)), c = Math.min(length, b.capacity() - at);
+
+                b.clear();
+                b.position(at);
+                b.put(src, offset, c);
+
+                pos += c;
+                offset += c;
+                length -= c;
+            }
+        }
+
+        /**
+         *
+         * @return one independent view of every segment, for a reader to move
+         * the position and limit of without disturbing the store
+         */
+        ByteBuffer[] views() {
+
+            ByteBuffer[] v = new ByteBuffer[segments.size()];
+
+            for (int s = 0; s < v.length; ++s) {
+                v[s] = segments.get(s).duplicate();
+            }
+
+            return v;
+        }
+
+        /**
+         *
+         * Copy bytes from a store, through views of its segments, into an
+         * array, across segment boundaries.
+         */
+        static void get(ByteBuffer[] views, long pos, byte[] dst, int offset, int length) {
+
+            while (length > 0) {
+
+                ByteBuffer b = views[(int) (pos >>> SEGMENT_BITS)];
+
+                int at = (int) (pos & (SEGMENT_SIZE - 1)), c = Math.min(length, b.capacity() - at);
+
+                b.clear();
+                b.position(at);
+                b.get(dst, offset, c);
+
+                pos += c;
+                offset += c;
+                length -= c;
+            }
+        }
+
+        /**
+         *
+         * Copy bytes from a store, through views of its segments, into a buffer
+         * at its position, across segment boundaries.
+         */
+        static void get(ByteBuffer[] views, long pos, ByteBuffer dst, int length) {
+
+            while (length > 0) {
+
+                ByteBuffer b = views[(int) (pos >>> SEGMENT_BITS)];
+
+                int at = (int) (pos & (SEGMENT_SIZE - 1)), c = Math.min(length, b.capacity() - at);
+
+                b.clear();
+                b.position(at);
+                b.limit(at + c);
+
+                dst.put(b);
+
+                pos += c;
+                length -= c;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package sortingandselection;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * The parallel counting sort behind
+ * {@link SortingAndSelection#countingSort(Record[], ForkJoinPool)}.
+ *
+ * The array is split into one block per thread, and the sort runs as four
+ * parallel passes over the blocks: each block finds its smallest and largest
+ * key, then counts its keys in a histogram of its own over the range of the
+ * whole array. A sequential prefix sum over the histograms, key by key and
+ * within a key block by block, turns every count into the index at which the
+ * block writes its first Record with that key, so in the third pass every
+ * block scatters its Records into the auxiliary array without sharing a
+ * single index with another block, in input order. The last pass copies the
+ * sorted Records back, again block by block.
+ *
+ * The histograms together take (max - min + 1) ints per block; if that is
+ * more than the array length, the range is too wide to count and the array
+ * is radix sorted in parallel instead.
+ */
+final class ParallelCountingSort {
+
+    /**
+     * The array length at or below which the sequential counting sort is
+     * used.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    /**
+     * The smallest block worth a task of its own.
+     */
+    static final int MIN_BLOCK = 1 << 12;
+
+    private static final int MIN_MAX = 0, HISTOGRAM = 1, SCATTER = 2, COPY = 3;
+
+    /**
+     *
+     * Private constructor to prevent instantiation of Objects of this class
+     */
+    private ParallelCountingSort() {
+    }
+
+    static void sort(Record[] a, ForkJoinPool pool, int threshold) {
+
+        if (a.length <= threshold) {
+
+            SortingAndSelection.countingSort(a);
+
+            return;
+        }
+
+        CountingSort s = new CountingSort(a, pool.getParallelism());
+
+        pool.invoke(s);
+
+        if (!s.counted) {
+            ParallelRadixSort.sort(a, pool, ParallelRadixSort.SEQUENTIAL_THRESHOLD);
+        }
+    }
+
+    /**
+     *
+     * Sorts a if its key range is narrow enough to count, and records whether
+     * it was.
+     */
+    @SuppressWarnings("serial")
+    private static final class CountingSort extends RecursiveAction {
+
+        private final Record[] a;
+        private final int parallelism;
+        boolean counted;
+
+        CountingSort(Record[] a, int parallelism) {
+            this.a = a;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        protected void compute() {
+
+            int n = a.length, blocks = Math.max(1, Math.min(parallelism, n / MIN_BLOCK));
+
+            Block[] tasks = new Block[blocks];
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = new Block(a, null, (int) ((long) n * b / blocks),
+                        (int) ((long) n * (b + 1) / blocks), MIN_MAX, 0, null);
+            }
+
+            invokeAll(tasks);
+
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+            for (Block t : tasks) {
+                min = Math.min(min, t.min);
+                max = Math.max(max, t.max);
+            }
+
+            long range = (long) max - min + 1;
+
+            if (range * blocks > Math.max(n, SortingAndSelection.RADIX)) {
+                return;
+            }
+
+            counted = true;
+
+            if (min == max) {
+                return; /*all keys are equal*/
+            }
+
+            Record[] scratch = new Record[n];
+
+            int[][] counts = new int[blocks][];
+
+            for (int b = 0; b < blocks; ++b) {
+
+                counts[b] = new int[(int) range];
+
+                tasks[b] = tasks[b].next(scratch, HISTOGRAM, min, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            int total = 0;
+
+            for (int k = 0; k < range; ++k) {
+                for (int[] row : counts) {
+
+                    int c = row[k];
+                    row[k] = total;
+                    total += c;
+                }
+            }
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = tasks[b].next(scratch, SCATTER, min, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = tasks[b].next(scratch, COPY, min, null);
+            }
+
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     *
+     * One pass of the parallel counting sort over one block of Records.
+     */
+    @SuppressWarnings("serial")
+    private static final class Block extends RecursiveAction {
+
+        private final Record[] a, scratch;
+        private final int lo, hi, phase, offset;
+        private final int[] counts;
+        int min, max;
+
+        Block(Record[] a, Record[] scratch, int lo, int hi, int phase, int offset, int[] counts) {
+
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.phase = phase;
+            this.offset = offset;
+            this.counts = counts;
+        }
+
+        /**
+         *
+         * @return a task for the next pass over the same block
+         */
+        Block next(Record[] scratch, int phase, int offset, int[] counts) {
+            return new Block(a, scratch, lo, hi, phase, offset, counts);
+        }
+
+        @Override
+        protected void compute() {
+
+            if (phase == MIN_MAX) {
+
+                int l = Integer.MAX_VALUE, h = Integer.MIN_VALUE;
+
+                for (int i = lo; i < hi; ++i) {
+
+                    int k = a[i].key;
+
+                    l = Math.min(l, k);
+                    h = Math.max(h, k);
+                }
+
+                min = l;
+                max = h;
+            } else if (phase == HISTOGRAM) {
+
+                for (int i = lo; i < hi; ++i) {
+                    ++counts[a[i].key - offset];
+                }
+            } else if (phase == SCATTER) {
+
+                for (int i = lo; i < hi; ++i) {
+
+                    Record r = a[i];
+
+                    scratch[counts[r.key - offset]++] = r;
+                }
+            } else {
+                System.arraycopy(scratch, lo, a, lo, hi - lo);
+            }
+        }
+    }
+}
\ No newline at end of file
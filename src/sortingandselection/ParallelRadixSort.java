@@ -0,0 +1,536 @@
+package sortingandselection;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *
+ * The parallel radix sorts behind
+ * {@link SortingAndSelection#parallelRadixSort(Record[], ForkJoinPool)} and
+ * {@link SortingAndSelection#parallelRadixSort(int[], ForkJoinPool)}.
+ *
+ * A range is split into a few blocks per thread and sorted by one most
+ * significant digit in three parallel passes over the blocks: each block
+ * finds its smallest and largest key, then counts its keys per digit, and
+ * finally, once a prefix sum over all block histograms has given every block
+ * its own slice of every bucket, scatters its keys into the scratch array.
+ * The digit is taken from the 8 most significant bits in which the keys of
+ * the range differ, so keys of a narrow range still spread over up to 256
+ * buckets. Keys are scattered through a small buffer per bucket that is
+ * copied out a cache line at a time, so a block writes to 256 places in
+ * memory without a cache or TLB miss per key. The buckets are then sorted in
+ * parallel: small ones by a sequential LSD radix sort, large ones by applying
+ * the same procedure to the bucket.
+ *
+ * Both sorts use one auxiliary array as large as the input. Blocks scatter
+ * in input order, so the sort of Records is stable.
+ */
+final class ParallelRadixSort {
+
+    /**
+     * The range size at or below which the sequential LSD radix sort is used.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    static final int BLOCKS_PER_THREAD = 4;
+    /**
+     * The number of keys buffered per bucket during a scatter: 16 Record
+     * references (compressed) or 16 ints fill a 64-byte cache line.
+     */
+    static final int WRITE_BUFFER = 16;
+
+    private static final int MIN_MAX = 0, HISTOGRAM = 1, SCATTER = 2;
+
+    /**
+     *
+     * Private constructor to prevent instantiation of Objects of this class
+     */
+    private ParallelRadixSort() {
+    }
+
+    static void sort(Record[] a, ForkJoinPool pool, int threshold) {
+
+        if (a.length > 1) {
+            pool.invoke(new RecordSort(a, new Record[a.length], 0, a.length, false,
+                    pool.getParallelism(), threshold));
+        }
+    }
+
+    static void sort(int[] a, ForkJoinPool pool, int threshold) {
+
+        if (a.length > 1) {
+            pool.invoke(new IntSort(a, new int[a.length], 0, a.length, false,
+                    pool.getParallelism(), threshold));
+        }
+    }
+
+    /**
+     *
+     * @return the number of blocks a range of n keys is split into
+     */
+    private static int blocks(int n, int parallelism, int threshold) {
+        return (int) Math.max(1, Math.min((long) parallelism * BLOCKS_PER_THREAD,
+                n / Math.max(1, threshold >> 2)));
+    }
+
+    /**
+     *
+     * @return the shift of the 8-bit digit made of the most significant bits
+     * in which the two keys differ
+     */
+    private static int shift(int min, int max) {
+        return Math.max(0, Integer.SIZE - Integer.numberOfLeadingZeros(min ^ max)
+                - SortingAndSelection.RADIX_BITS);
+    }
+
+    /**
+     *
+     * Turn the per-block histograms into the index at which each block
+     * writes its first key of each bucket, bucket by bucket and, within a
+     * bucket, block by block.
+     *
+     * @param starts receives the index of the first key of every bucket
+     */
+    private static void prefixSum(int[][] counts, int lo, int[] starts) {
+
+        int total = lo;
+
+        for (int d = 0; d < SortingAndSelection.RADIX; ++d) {
+
+            starts[d] = total;
+
+            for (int[] row : counts) {
+
+                int c = row[d];
+                row[d] = total;
+                total += c;
+            }
+        }
+
+        starts[SortingAndSelection.RADIX] = total;
+    }
+
+    /**
+     *
+     * Sorts a[lo, hi), or scratch[lo, hi) into a[lo, hi) if the keys are
+     * currently in the scratch array.
+     */
+    @SuppressWarnings("serial")
+    private static final class RecordSort extends RecursiveAction {
+
+        private final Record[] a, scratch;
+        private final int lo, hi, parallelism, threshold;
+        private final boolean inScratch;
+
+        RecordSort(Record[] a, Record[] scratch, int lo, int hi, boolean inScratch,
+                int parallelism, int threshold) {
+
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.inScratch = inScratch;
+            this.parallelism = parallelism;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= threshold) {
+
+                Record[] src = inScratch ? scratch : a;
+
+                if (SortingAndSelection.radixSort(src, src == a ? scratch : a, lo, hi) != a) {
+                    System.arraycopy(scratch, lo, a, lo, hi - lo);
+                }
+
+                return;
+            }
+
+            if (inScratch) {
+                System.arraycopy(scratch, lo, a, lo, hi - lo);
+            }
+
+            int blocks = blocks(hi - lo, parallelism, threshold);
+
+            RecordBlock[] tasks = new RecordBlock[blocks];
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = new RecordBlock(a, scratch, lo + (int) ((long) (hi - lo) * b / blocks),
+                        lo + (int) ((long) (hi - lo) * (b + 1) / blocks));
+            }
+
+            invokeAll(tasks);
+
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+            for (RecordBlock t : tasks) {
+                min = Math.min(min, t.min);
+                max = Math.max(max, t.max);
+            }
+
+            if (min == max) {
+                return; /*all keys are equal*/
+            }
+
+            int shift = shift(min, max);
+
+            int[][] counts = new int[blocks][];
+
+            for (int b = 0; b < blocks; ++b) {
+
+                counts[b] = new int[SortingAndSelection.RADIX];
+
+                tasks[b] = tasks[b].next(HISTOGRAM, shift, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            int[] starts = new int[SortingAndSelection.RADIX + 1];
+
+            prefixSum(counts, lo, starts);
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = tasks[b].next(SCATTER, shift, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            RecordSort[] buckets = new RecordSort[SortingAndSelection.RADIX];
+
+            for (int d = 0; d < SortingAndSelection.RADIX; ++d) {
+                buckets[d] = new RecordSort(a, scratch, starts[d], starts[d + 1], true,
+                        parallelism, threshold);
+            }
+
+            invokeAll(buckets);
+        }
+    }
+
+    /**
+     *
+     * One pass of a parallel radix sort step over one block of Records.
+     */
+    @SuppressWarnings("serial")
+    private static final class RecordBlock extends RecursiveAction {
+
+        private final Record[] a, scratch;
+        private final int lo, hi, phase, shift;
+        private final int[] counts;
+        int min, max;
+
+        RecordBlock(Record[] a, Record[] scratch, int lo, int hi) {
+            this(a, scratch, lo, hi, MIN_MAX, 0, null);
+        }
+
+        private RecordBlock(Record[] a, Record[] scratch, int lo, int hi, int phase, int shift,
+                int[] counts) {
+
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.phase = phase;
+            this.shift = shift;
+            this.counts = counts;
+        }
+
+        /**
+         *
+         * @return a task for the next pass over the same block
+         */
+        RecordBlock next(int phase, int shift, int[] counts) {
+            return new RecordBlock(a, scratch, lo, hi, phase, shift, counts);
+        }
+
+        @Override
+        protected void compute() {
+
+            if (phase == MIN_MAX) {
+
+                int l = Integer.MAX_VALUE, h = Integer.MIN_VALUE;
+
+                for (int i = lo; i < hi; ++i) {
+
+                    int k = a[i].key;
+
+                    l = Math.min(l, k);
+                    h = Math.max(h, k);
+                }
+
+                min = l;
+                max = h;
+            } else if (phase == HISTOGRAM) {
+
+                for (int i = lo; i < hi; ++i) {
+                    ++counts[((a[i].key ^ Integer.MIN_VALUE) >>> shift) & SortingAndSelection.RADIX_MASK];
+                }
+            } else {
+
+                Record[] buffer = new Record[SortingAndSelection.RADIX * WRITE_BUFFER];
+
+                int[] fill = new int[SortingAndSelection.RADIX];
+
+                for (int i = lo; i < hi; ++i) {
+
+                    Record r = a[i];
+
+                    int d = ((r.key ^ Integer.MIN_VALUE) >>> shift) & SortingAndSelection.RADIX_MASK;
+
+                    buffer[d * WRITE_BUFFER + fill[d]] = r;
+
+                    if (++fill[d] == WRITE_BUFFER) {
+
+                        System.arraycopy(buffer, d * WRITE_BUFFER, scratch, counts[d], WRITE_BUFFER);
+
+                        counts[d] += WRITE_BUFFER;
+                        fill[d] = 0;
+                    }
+                }
+
+                for (int d = 0; d < SortingAndSelection.RADIX; ++d) {
+                    System.arraycopy(buffer, d * WRITE_BUFFER, scratch, counts[d], fill[d]);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * Sorts a[lo, hi), or scratch[lo, hi) into a[lo, hi) if the keys are
+     * currently in the scratch array.
+     */
+    @SuppressWarnings("serial")
+    private static final class IntSort extends RecursiveAction {
+
+        private final int[] a, scratch;
+        private final int lo, hi, parallelism, threshold;
+        private final boolean inScratch;
+
+        IntSort(int[] a, int[] scratch, int lo, int hi, boolean inScratch, int parallelism,
+                int threshold) {
+
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.inScratch = inScratch;
+            this.parallelism = parallelism;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= threshold) {
+
+                int[] src = inScratch ? scratch : a;
+
+                if (radixSort(src, src == a ? scratch : a, lo, hi) != a) {
+                    System.arraycopy(scratch, lo, a, lo, hi - lo);
+                }
+
+                return;
+            }
+
+            if (inScratch) {
+                System.arraycopy(scratch, lo, a, lo, hi - lo);
+            }
+
+            int blocks = blocks(hi - lo, parallelism, threshold);
+
+            IntBlock[] tasks = new IntBlock[blocks];
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = new IntBlock(a, scratch, lo + (int) ((long) (hi - lo) * b / blocks),
+                        lo + (int) ((long) (hi - lo) * (b + 1) / blocks));
+            }
+
+            invokeAll(tasks);
+
+            int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+            for (IntBlock t : tasks) {
+                min = Math.min(min, t.min);
+                max = Math.max(max, t.max);
+            }
+
+            if (min == max) {
+                return;
+            }
+
+            int shift = shift(min, max);
+
+            int[][] counts = new int[blocks][];
+
+            for (int b = 0; b < blocks; ++b) {
+
+                counts[b] = new int[SortingAndSelection.RADIX];
+
+                tasks[b] = tasks[b].next(HISTOGRAM, shift, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            int[] starts = new int[SortingAndSelection.RADIX + 1];
+
+            prefixSum(counts, lo, starts);
+
+            for (int b = 0; b < blocks; ++b) {
+                tasks[b] = tasks[b].next(SCATTER, shift, counts[b]);
+            }
+
+            invokeAll(tasks);
+
+            IntSort[] buckets = new IntSort[SortingAndSelection.RADIX];
+
+            for (int d = 0; d < SortingAndSelection.RADIX; ++d) {
+                buckets[d] = new IntSort(a, scratch, starts[d], starts[d + 1], true,
+                        parallelism, threshold);
+            }
+
+            invokeAll(buckets);
+        }
+    }
+
+    /**
+     *
+     * One pass of a parallel radix sort step over one block of ints.
+     */
+    @SuppressWarnings("serial")
+    private static final class IntBlock extends RecursiveAction {
+
+        private final int[] a, scratch;
+        private final int lo, hi, phase, shift;
+        private final int[] counts;
+        int min, max;
+
+        IntBlock(int[] a, int[] scratch, int lo, int hi) {
+            this(a, scratch, lo, hi, MIN_MAX, 0, null);
+        }
+
+        private IntBlock(int[] a, int[] scratch, int lo, int hi, int phase, int shift,
+                int[] counts) {
+
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.phase = phase;
+            this.shift = shift;
+            this.counts = counts;
+        }
+
+        IntBlock next(int phase, int shift, int[] counts) {
+            return new IntBlock(a, scratch, lo, hi, phase, shift, counts);
+        }
+
+        @Override
+        protected void compute() {
+
+            if (phase == MIN_MAX) {
+
+                int l = Integer.MAX_VALUE, h = Integer.MIN_VALUE;
+
+                for (int i = lo; i < hi; ++i) {
+                    l = Math.min(l, a[i]);
+                    h = Math.max(h, a[i]);
+                }
+
+                min = l;
+                max = h;
+            } else if (phase == HISTOGRAM) {
+
+                for (int i = lo; i < hi; ++i) {
+                    ++counts[((a[i] ^ Integer.MIN_VALUE) >>> shift) & SortingAndSelection.RADIX_MASK];
+                }
+            } else {
+
+                int[] buffer = new int[SortingAndSelection.RADIX * WRITE_BUFFER];
+
+                int[] fill = new int[SortingAndSelection.RADIX];
+
+                for (int i = lo; i < hi; ++i) {
+
+                    int k = a[i];
+
+                    int d = ((k ^ Integer.MIN_VALUE) >>> shift) & SortingAndSelection.RADIX_MASK;
+
+                    buffer[d * WRITE_BUFFER + fill[d]] = k;
+
+                    if (++fill[d] == WRITE_BUFFER) {
+
+                        System.arraycopy(buffer, d * WRITE_BUFFER, scratch, counts[d], WRITE_BUFFER);
+
+                        counts[d] += WRITE_BUFFER;
+                        fill[d] = 0;
+                    }
+                }
+
+                for (int d = 0; d < SortingAndSelection.RADIX; ++d) {
+                    System.arraycopy(buffer, d * WRITE_BUFFER, scratch, counts[d], fill[d]);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * LSD radix sort of a[lo, hi), using scratch[lo, hi) as auxiliary space.
+     *
+     * @return whichever of a and scratch holds the sorted range on return
+     */
+    static int[] radixSort(int[] a, int[] scratch, int lo, int hi) {
+
+        int n = hi - lo;
+
+        if (n < 2) {
+            return a;
+        }
+
+        int[] counts = new int[SortingAndSelection.RADIX_DIGITS * SortingAndSelection.RADIX];
+
+        for (int i = lo; i < hi; ++i) {
+
+            int k = a[i] ^ Integer.MIN_VALUE;
+
+            for (int d = 0; d < SortingAndSelection.RADIX_DIGITS; ++d) {
+                ++counts[d * SortingAndSelection.RADIX
+                        + ((k >>> (d * SortingAndSelection.RADIX_BITS)) & SortingAndSelection.RADIX_MASK)];
+            }
+        }
+
+        int[] src = a, dst = scratch, t;
+
+        int first = a[lo] ^ Integer.MIN_VALUE;
+
+        for (int d = 0; d < SortingAndSelection.RADIX_DIGITS; ++d) {
+
+            int base = d * SortingAndSelection.RADIX, shift = d * SortingAndSelection.RADIX_BITS;
+
+            if (counts[base + ((first >>> shift) & SortingAndSelection.RADIX_MASK)] == n) {
+                continue; /*every key has the same digit here*/
+            }
+
+            for (int b = base, total = lo, c; b < base + SortingAndSelection.RADIX; ++b) {
+
+                c = counts[b];
+                counts[b] = total;
+                total += c;
+            }
+
+            for (int i = lo; i < hi; ++i) {
+
+                int k = src[i];
+
+                dst[counts[base + (((k ^ Integer.MIN_VALUE) >>> shift) & SortingAndSelection.RADIX_MASK)]++] = k;
+            }
+
+            t = src;
+            src = dst;
+            dst = t;
+        }
+
+        return src;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,342 @@
+package sortingandselection;
+
+/**
+ *
+ * Chooses a sorting algorithm for an array of Records from a profile of the
+ * array, so callers do not have to know the distribution of their keys. The
+ * decision is split into three steps that can be used on their own:
+ * {@link #profile(Record[], boolean)} measures the input,
+ * {@link #choose(SortProfile)} maps a profile to an {@link Engine}, and
+ * {@link #sort(Record[], boolean)} does both and runs the engine.
+ *
+ * The rules of choose are, in order:
+ * <ul>
+ * <li>arrays that are already sorted are left alone;</li>
+ * <li>arrays of at most insertionThreshold Records are insertion sorted;</li>
+ * <li>arrays whose keys span at most countingRangeFactor * n values are
+ * counting sorted;</li>
+ * <li>arrays made of ascending or descending runs of minAverageRun Records on
+ * average are merged by powersort;</li>
+ * <li>arrays of at least radixThreshold Records are radix sorted;</li>
+ * <li>the remaining arrays are mergesorted if the sort must be stable,
+ * 3-way quicksorted if at least duplicateThreshold of the sampled keys are
+ * duplicates, and introsorted otherwise.</li>
+ * </ul>
+ * With the default thresholds, an unsorted array of at least radixThreshold
+ * (256) Records whose keys are too spread out for counting sort and whose
+ * runs are too short for powersort is always radix sorted. Mergesort, 3-way
+ * quicksort and introsort, and with them the sampled duplicate ratio, only
+ * decide arrays of 33 to 255 Records.
+ *
+ * The thresholds have setters so that they can be fitted to a machine with
+ * SortDispatcherBenchmark in the benchmark module, which runs each engine on
+ * 16 to 1024 Records with keys spread over the int range. The defaults match
+ * one run of it on a single core: insertion sort kept up with mergesort at 32
+ * Records and fell behind from 64 on, and radix sort overtook every
+ * comparison sort between 128 and 256 Records for random keys, but only at
+ * about 512 for few-unique and Zipf keys, where the engines were within the
+ * measurement error of one another at 256.
+ */
+public class SortDispatcher {
+
+    /**
+     * The sorting algorithms a dispatcher chooses from.
+     */
+    public enum Engine {
+
+        /**
+         * The array is already sorted; nothing is done.
+         */
+        NONE,
+        /**
+         * {@link SortingAndSelection#insertionSort(Record[])}
+         */
+        INSERTION,
+        /**
+         * {@link SortingAndSelection#countingSort(Record[])}, with the key
+         * range taken from the profile
+         */
+        COUNTING,
+        /**
+         * {@link SortingAndSelection#powerSort(Record[])}
+         */
+        POWER,
+        /**
+         * {@link SortingAndSelection#radixSort(Record[])}
+         */
+        RADIX,
+        /**
+         * {@link SortingAndSelection#mergeSort(Record[])}
+         */
+        MERGE,
+        /**
+         * {@link SortingAndSelection#introSort(Record[])}, not stable
+         */
+        INTRO,
+        /**
+         * {@link SortingAndSelection#quickSort3Way(Record[])}, not stable
+         */
+        QUICK_3WAY;
+
+        /**
+         *
+         * @return {@code true} if the engine keeps Records with equal keys in
+         * their original order
+         */
+        public boolean isStable() {
+            return this != INTRO && this != QUICK_3WAY;
+        }
+    }
+
+    /**
+     * The dispatcher used by {@link SortingAndSelection#sort(Record[])}.
+     */
+    static final SortDispatcher DEFAULT = new SortDispatcher();
+
+    /**
+     * The maximum number of keys sampled to estimate the duplicate ratio.
+     */
+    static final int SAMPLE_SIZE = 256;
+
+    /**
+     * The widest key range counting sort is ever chosen for, whatever the
+     * counting range factor: the largest count array that can be allocated.
+     */
+    static final int MAX_COUNTING_RANGE = Integer.MAX_VALUE - 8;
+
+    private int insertionThreshold = 32;
+    private int radixThreshold = 256;
+    private int minAverageRun = 256;
+    private double countingRangeFactor = 1.0;
+    private double duplicateThreshold = .5;
+
+    /**
+     *
+     * Measure the properties of an array that the choice of engine depends
+     * on. O(n) time, plus the sorting of a sample of {@value #SAMPLE_SIZE}
+     * keys.
+     *
+     * @param a the Record array to be sorted
+     * @param stable {@code true} if the sort must be stable
+     * @return the profile of a
+     */
+    public SortProfile profile(Record[] a, boolean stable) {
+
+        int n = a.length;
+
+        if (n == 0) {
+            return new SortProfile(0, 0, 0, 0, 0, stable);
+        }
+
+        int min = a[0].key, max = min, descents = 0, prev = min;
+
+        for (int i = 1; i < n; ++i) {
+
+            int k = a[i].key;
+
+            /*A new minimum is below its predecessor and a new maximum is
+             * not, so each key is compared against one of the two only*/
+            if (k < prev) {
+
+                ++descents;
+
+                min = Math.min(min, k);
+
+            } else {
+                max = Math.max(max, k);
+            }
+
+            prev = k;
+        }
+
+        int s = Math.min(n, SAMPLE_SIZE);
+
+        int[] sample = new int[s];
+
+        for (int i = 0; i < s; ++i) {
+            sample[i] = a[(int) ((long) i * n / s)].key;
+        }
+
+        SortingAndSelection.sort(sample);
+
+        int duplicates = 0;
+
+        for (int i = 1; i < s; ++i) {
+            if (sample[i] == sample[i - 1]) {
+                ++duplicates;
+            }
+        }
+
+        return new SortProfile(n, min, max, descents, (double) duplicates / s, stable);
+    }
+
+    /**
+     *
+     * @param p the profile of the array to be sorted
+     * @return the engine this dispatcher would sort the array with
+     */
+    public Engine choose(SortProfile p) {
+
+        int n = p.size();
+
+        if (p.descents() == 0) {
+            return Engine.NONE;
+        }
+
+        if (n <= insertionThreshold) {
+            return Engine.INSERTION;
+        }
+
+        if (p.range() <= countingRangeFactor * n && p.range() <= MAX_COUNTING_RANGE) {
+            return Engine.COUNTING;
+        }
+
+        /*powersort only reverses strictly descending runs*/
+        int runs = Math.min(p.descents() + 1, n - p.descents());
+
+        if (n / runs >= minAverageRun) {
+            return Engine.POWER;
+        }
+
+        if (n >= radixThreshold) {
+            return Engine.RADIX;
+        }
+
+        if (p.isStable()) {
+            return Engine.MERGE;
+        }
+
+        return p.duplicateRatio() >= duplicateThreshold ? Engine.QUICK_3WAY : Engine.INTRO;
+    }
+
+    /**
+     *
+     * Profile an array, choose an engine for it and sort it with that engine.
+     *
+     * @param a the Record array to be sorted
+     * @param stable {@code true} if Records with equal keys must keep their
+     * original order
+     * @return the engine the array was sorted with
+     */
+    public Engine sort(Record[] a, boolean stable) {
+
+        SortProfile p = profile(a, stable);
+
+        Engine e = choose(p);
+
+        switch (e) {
+            case INSERTION:
+                SortingAndSelection.insertionSort(a);
+                break;
+            case COUNTING:
+                SortingAndSelection.countingSort(a, p.min(), p.max());
+                break;
+            case POWER:
+                SortingAndSelection.powerSort(a);
+                break;
+            case RADIX:
+                SortingAndSelection.radixSort(a);
+                break;
+            case MERGE:
+                SortingAndSelection.mergeSort(a);
+                break;
+            case INTRO:
+                SortingAndSelection.introSort(a);
+                break;
+            case QUICK_3WAY:
+                SortingAndSelection.quickSort3Way(a);
+                break;
+            default:
+                break;
+        }
+
+        return e;
+    }
+
+    /**
+     *
+     * @param threshold the size at or below which arrays are insertion sorted
+     * @throws IllegalArgumentException if threshold is negative
+     */
+    public void setInsertionThreshold(int threshold) {
+        insertionThreshold = checkThreshold(threshold);
+    }
+
+    public int getInsertionThreshold() {
+        return insertionThreshold;
+    }
+
+    /**
+     *
+     * @param threshold the size from which unsorted arrays are radix sorted
+     * @throws IllegalArgumentException if threshold is negative
+     */
+    public void setRadixThreshold(int threshold) {
+        radixThreshold = checkThreshold(threshold);
+    }
+
+    public int getRadixThreshold() {
+        return radixThreshold;
+    }
+
+    /**
+     *
+     * @param length the average run length from which arrays are merged by
+     * powersort
+     * @throws IllegalArgumentException if length is negative
+     */
+    public void setMinAverageRun(int length) {
+        minAverageRun = checkThreshold(length);
+    }
+
+    public int getMinAverageRun() {
+        return minAverageRun;
+    }
+
+    /**
+     *
+     * @param factor counting sort is used if the keys span at most factor * n
+     * values, and never for a span wider than {@value #MAX_COUNTING_RANGE}
+     * @throws IllegalArgumentException if factor is negative or NaN
+     */
+    public void setCountingRangeFactor(double factor) {
+
+        if (!(factor >= 0)) {
+            throw new IllegalArgumentException("counting range factor must not be negative");
+        }
+
+        countingRangeFactor = factor;
+    }
+
+    public double getCountingRangeFactor() {
+        return countingRangeFactor;
+    }
+
+    /**
+     *
+     * @param ratio the duplicate ratio from which small arrays that need no
+     * stable sort are 3-way quicksorted
+     * @throws IllegalArgumentException if ratio is not in [0, 1]
+     */
+    public void setDuplicateThreshold(double ratio) {
+
+        if (!(ratio >= 0 && ratio <= 1)) {
+            throw new IllegalArgumentException("duplicate threshold must be in [0, 1]");
+        }
+
+        duplicateThreshold = ratio;
+    }
+
+    public double getDuplicateThreshold() {
+        return duplicateThreshold;
+    }
+
+    private static int checkThreshold(int threshold) {
+
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+
+        return threshold;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package sortingandselection;
+
+/**
+ *
+ * The properties of an input array that {@link SortDispatcher} bases its
+ * choice of sorting algorithm on: the size of the array, the range of its
+ * keys, how far it is from being sorted, an estimate of how many of its keys
+ * are duplicates, and whether the caller needs a stable sort. The size, key
+ * range and presortedness are exact and come from a single pass over the
+ * array; the duplicate ratio is estimated from an evenly spaced sample.
+ */
+public final class SortProfile {
+
+    private final int size, min, max, descents;
+    private final double duplicateRatio;
+    private final boolean stable;
+
+    SortProfile(int size, int min, int max, int descents, double duplicateRatio,
+            boolean stable) {
+
+        this.size = size;
+        this.min = min;
+        this.max = max;
+        this.descents = descents;
+        this.duplicateRatio = duplicateRatio;
+        this.stable = stable;
+    }
+
+    /**
+     *
+     * @return the number of Records in the array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return the smallest key in the array, or 0 if it is empty
+     */
+    public int min() {
+        return min;
+    }
+
+    /**
+     *
+     * @return the largest key in the array, or 0 if it is empty
+     */
+    public int max() {
+        return max;
+    }
+
+    /**
+     *
+     * @return the number of distinct key values between min and max
+     * inclusive, or 0 if the array is empty
+     */
+    public long range() {
+        return size == 0 ? 0 : (long) max - min + 1;
+    }
+
+    /**
+     *
+     * @return the number of adjacent pairs whose keys are in descending
+     * order. The array is sorted if this is 0; it consists of descents() + 1
+     * ascending runs, or of size() - descents() strictly descending runs.
+     */
+    public int descents() {
+        return descents;
+    }
+
+    /**
+     *
+     * @return the fraction of the sampled keys that are equal to another key
+     * of the sample, between 0 for no duplicates and nearly 1 for a single
+     * key value
+     */
+    public double duplicateRatio() {
+        return duplicateRatio;
+    }
+
+    /**
+     *
+     * @return {@code true} if the sort must keep Records with equal keys in
+     * their original order
+     */
+    public boolean isStable() {
+        return stable;
+    }
+
+    /**
+     *
+     * @return a String representation of this profile, for logging the inputs
+     * of tuning runs
+     */
+    @Override
+    public String toString() {
+        return "[size=" + size + ", min=" + min + ", max=" + max + ", descents=" + descents
+                + ", duplicateRatio=" + duplicateRatio + ", stable=" + stable + "]";
+    }
+}
\ No newline at end of file
@@ -3,14 +3,93 @@ package sortingandselection;
 /**
  * @author John Paul Smith
  *
- * A repository for implementations of sorting and selection algorithms. All
+ * A repository for implementations of sorting and selection algorithms. Most
  * methods perform on Objects of the Record class, which contain an integer
- * field to key on.
+ * field to key on. Overloads of the general purpose sort and selection methods
+ * are also provided for arrays of primitive int and long keys.
  */
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class SortingAndSelection {
 
+    /**
+     * The sub-array size at or below which the parallel mergesort stops
+     * forking and sorts (or merges) sequentially.
+     */
+    static final int PARALLEL_MERGE_THRESHOLD = 1 << 13;
+
+    /**
+     * The sub-array size at or below which the parallel quicksort stops
+     * forking and sorts sequentially.
+     */
+    static final int PARALLEL_QUICKSORT_THRESHOLD = 1 << 13;
+
+    /**
+     * The sub-array size at or below which the recursive sorts switch to
+     * insertion sort.
+     */
+    static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Powersort extends natural runs shorter than this with binary insertion
+     * sort.
+     */
+    static final int MIN_RUN = 32;
+
+    /**
+     * The initial number of consecutive wins of one run after which a
+     * powersort merge starts galloping.
+     */
+    static final int MIN_GALLOP = 7;
+
+    /**
+     * The sub-array size above which introsort picks its pivot with Tukey's
+     * ninther rather than a plain median of three.
+     */
+    static final int NINTHER_THRESHOLD = 128;
+
+    /**
+     * The number of element moves after which introsort stops trying to
+     * finish a nearly sorted sub-array with insertion sort.
+     */
+    static final int PARTIAL_INSERTION_LIMIT = 8;
+
+    /**
+     * The sub-array size above which introselect picks its pivot by Floyd and
+     * Rivest's sampling.
+     */
+    static final int FLOYD_RIVEST_THRESHOLD = 600;
+
+    /**
+     * Introselect switches to median-of-medians pivots once it has
+     * partitioned this many times the input size without finding the k-th
+     * element.
+     */
+    static final int SELECT_WORK_FACTOR = 4;
+
+    /**
+     * The number of searches whose probes binarySearchAll interleaves.
+     */
+    static final int SEARCH_GROUP = 8;
+
+    /**
+     * The number of keys at or below which the parallel binarySearchAll
+     * searches sequentially.
+     */
+    static final int PARALLEL_SEARCH_THRESHOLD = 1 << 14;
+
+    /**
+     * Radix sort works on 8-bit digits, four per int key.
+     */
+    static final int RADIX_BITS = 8;
+    static final int RADIX = 1 << RADIX_BITS;
+    static final int RADIX_MASK = RADIX - 1;
+    static final int RADIX_DIGITS = Integer.SIZE / RADIX_BITS;
+
     /**
      *
      * Private constructor to prevent instantiation of Objects of this class
@@ -18,6 +97,37 @@ public class SortingAndSelection {
     private SortingAndSelection() {
     }
 
+    /**
+     *
+     * Sort an array with the algorithm that suits it best, keeping Records
+     * with equal keys in their original order. See
+     * {@link #sort(Record[], boolean)}.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void sort(Record[] a) {
+        sort(a, true);
+    }
+
+    /**
+     *
+     * Sort an array with the algorithm that suits it best. The array is
+     * profiled in a single pass for its size, key range and presortedness,
+     * and a sample of its keys is checked for duplicates; the profile then
+     * decides between insertion sort, counting sort, powersort, radix sort,
+     * mergesort, introsort and 3-way quicksort as described in
+     * {@link SortDispatcher}. Counting sort is only chosen when its histogram
+     * is no larger than the array, so no key range makes this allocate more
+     * than O(n) memory.
+     *
+     * @param a the Record array to be sorted
+     * @param stable {@code true} if Records with equal keys must keep their
+     * original order; {@code false} also allows unstable algorithms
+     */
+    public static void sort(Record[] a, boolean stable) {
+        SortDispatcher.DEFAULT.sort(a, stable);
+    }
+
     /**
      *
      * Insertion sort on arrays.
@@ -27,16 +137,29 @@ public class SortingAndSelection {
      * @param a the Record array to be sorted
      */
     public static void insertionSort(Record[] a) {
+        insertionSort(a, 0, a.length);
+    }
+
+    /**
+     *
+     * Insertion sort on a range of an array. Used by the recursive sorts to
+     * finish off short sub-arrays.
+     *
+     * @param a the Record array to be sorted
+     * @param lo the first index of the range to be sorted
+     * @param hi one past the last index of the range to be sorted
+     */
+    private static void insertionSort(Record[] a, int lo, int hi) {
 
         Record r;
         int y;
 
-        for (int x = 0; x < a.length; ++x) {
+        for (int x = lo + 1; x < hi; ++x) {
 
             r = a[x];
             y = x;
 
-            while (y > 0 && a[y - 1].compareTo(r) > 0) {
+            while (y > lo && a[y - 1].compareTo(r) > 0) {
                 a[y] = a[--y];
             }
 
@@ -204,450 +327,3232 @@ public class SortingAndSelection {
 
     /**
      *
-     * Mergesort on arrays.
+     * Introsort on arrays. A quicksort intended for production use where the
+     * randomized {@link #quickSort(Record[])} is not good enough.
      *
-     * Stable but not in-place.
+     * Pivots are the median of three elements (first, middle and last), or
+     * Tukey's ninther (the median of three such medians) for sub-arrays longer
+     * than {@value #NINTHER_THRESHOLD} elements, and are found without
+     * allocating a random number generator. Sub-arrays of at most
+     * {@value #INSERTION_SORT_THRESHOLD} elements are finished with insertion
+     * sort. The sort recurses only into the smaller partition and loops on the
+     * larger one, so the stack depth stays logarithmic, and once the
+     * partitioning depth passes 2 log n the remaining sub-array is heap sorted,
+     * which bounds the worst case at O(n log n). Before each partition the
+     * sub-array is checked for an existing ascending or descending run, so
+     * sorted, reverse sorted and nearly sorted inputs finish in linear time.
+     *
+     * In-place but not stable.
      *
      * @param a the Record array to be sorted
      */
-    public static void mergeSort(Record[] a) {
-        mergeSort(a, 0, a.length - 1);
+    public static void introSort(Record[] a) {
+        introSort(a, 0, a.length, depthLimit(a.length));
     }
 
-    /**
-     *
-     * @param a the Record array to be sorted
-     * @param start the first index of the Record array to be sorted
-     * @param end the last index of the Record array to be sorted
-     * @return the sorted Record array
-     */
-    private static Record[] mergeSort(Record[] a, int start, int end) {
+    private static void introSort(Record[] a, int lo, int hi, int depth) {
 
-        if (start < end) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            if (depth-- == 0) {
 
-            int m = end >> 1;
+                inPlaceHeapSort(a, lo, hi);
 
-            Record[] leftSub = new Record[(m - start) + 1];
-            Record[] rightSub = new Record[end - m];
+                return;
+            }
 
-            System.arraycopy(a, 0, leftSub, 0, leftSub.length);
-            System.arraycopy(a, m + 1, rightSub, 0, rightSub.length);
+            if (finishRun(a, lo, hi)) {
+                return;
+            }
 
-            leftSub = mergeSort(leftSub, 0, (leftSub.length - 1));
-            rightSub = mergeSort(rightSub, 0, (rightSub.length - 1));
+            int p = partition(a, lo, hi, pivotIndex(a, lo, hi));
 
-            merge(a, leftSub, rightSub);
+            if (p - lo < hi - p) {
+                introSort(a, lo, p, depth);
+                lo = p + 1;
+            } else {
+                introSort(a, p + 1, hi, depth);
+                hi = p;
+            }
         }
 
-        return a;
+        insertionSort(a, lo, hi);
     }
 
     /**
      *
-     * Merge two Record arrays together by placing their respective elements
-     * into a third array.
+     * Partition a[lo, hi) around the element at index p. Elements equal to
+     * the pivot stop both scans and are swapped, which splits runs of equal
+     * keys evenly between the two sides.
      *
-     * @param a the Record array where left and right will be merged
-     * @param left left array to be merged
-     * @param right right array to be merged
+     * @return the final index of the pivot
      */
-    private static void merge(Record[] a, Record[] left, Record[] right) {
+    private static int partition(Record[] a, int lo, int hi, int p) {
 
-        for (int i = 0, j = 0, k = 0; k < left.length + right.length; ++k) {
+        int last = hi - 1;
 
-            if (i == left.length) {
-                a[k] = right[j++];
-            } else if (j == right.length) {
-                a[k] = left[i++];
-            } else {
-                a[k] = left[i].compareTo(right[j]) <= 0 ? left[i++] : right[j++];
-            }
-        }
-    }
+        Record t, pivot = a[p];
 
-    /**
-     *
-     * Mergesort on linked lists. In-place and stable. An ideal algorithm for
-     * sorting linked lists due to stability, a small extra space factor being
-     * used, and being fast even compared to quicksort adapted for linked lists.
-     *
-     * @param c the "head" node (Record) of the list to be sorted
-     * @return the sorted linked list
-     */
-    public static Record mergeSortLinkedList(Record c) {
+        /*Park the pivot at the front, where it also stops the downward scan*/
+        a[p] = a[lo];
+        a[lo] = pivot;
 
-        if (c == null || c.next == null) {
-            return c; /*return a one-element or empty list*/
-        }
+        int i = lo, j = hi;
 
-        Record a = c, b = c.next;
+        while (true) {
 
-        while (b != null && b.next != null) {
+            while (a[++i].compareTo(pivot) < 0) {
+                if (i == last) {
+                    break;
+                }
+            }
 
-            c = c.next; /*Move forward one record*/
+            while (pivot.compareTo(a[--j]) < 0) {
+            }
 
-            b = b.next.next; /*Move forward two records ahead*/
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
         }
 
-        b = c.next;
-        c.next = null;/*Sever the end of list 'a'*/
-        b.prev = null;/*Sever the beginning of list 'b'*/
+        a[lo] = a[j];
+        a[j] = pivot;
 
-        return listMerge(mergeSortLinkedList(a), mergeSortLinkedList(b));
+        return j;
     }
 
     /**
      *
-     * Merge two sorted linked lists together.
-     *
-     * @param a the "head" node (Record) first list to merge
-     * @param b the "head" node (Record) second list to merge
-     *
-     * @return the "head" node (Record) in the merged list
+     * @return the index of the median of three elements of a[lo, hi), or of
+     * Tukey's ninther for sub-arrays longer than {@value #NINTHER_THRESHOLD}
+     * elements
      */
-    private static Record listMerge(Record a, Record b) {
+    private static int pivotIndex(Record[] a, int lo, int hi) {
 
-        Record d = new Record(0, "DUMMY"), c = d;
+        int n = hi - lo, m = lo + (n >> 1), last = hi - 1;
 
-        while (a != null && b != null) {
+        if (n > NINTHER_THRESHOLD) {
 
-            if (a.compareTo(b) <= 0) {
-                c.next = a;
-                a.prev = c;
-                c = a;
-                a = a.next;
-            } else {
-                c.next = b;
-                b.prev = c;
-                c = b;
-                b = b.next;
-            }
-        }
+            int s = n >> 3;
 
-        c.next = (a == null ? b : a);
-        c.next.prev = c;
+            return medianOf3(a, medianOf3(a, lo, lo + s, lo + 2 * s),
+                    medianOf3(a, m - s, m, m + s),
+                    medianOf3(a, last - 2 * s, last - s, last));
+        }
 
-        Record r = d.next;
-        r.prev = null;
-        return r;
+        return medianOf3(a, lo, m, last);
     }
 
     /**
      *
-     * Heapsort on arrays. Create a min heap out of an arbitrary array of and
-     * repeatedly select-and-remove the top (minimum) element of the heap.
-     *
-     * This implementation is neither in-place nor stable.
-     *
-     * @param a the Record array to be sorted
+     * @return whichever of the indexes i, j and k holds the median of the
+     * three Records
      */
-    public static void heapSort(Record[] a) {
+    private static int medianOf3(Record[] a, int i, int j, int k) {
 
-        MinHeap h = new MinHeap(a.length);
+        if (a[i].compareTo(a[j]) < 0) {
 
-        for (Record r : a) {
-            h.add(r);
-        }
+            if (a[j].compareTo(a[k]) < 0) {
+                return j;
+            }
 
-        int i = 0;
+            return a[i].compareTo(a[k]) < 0 ? k : i;
+        }
 
-        while (!h.isEmpty()) {
-            a[i++] = h.remove();
+        if (a[k].compareTo(a[j]) < 0) {
+            return j;
         }
+
+        return a[k].compareTo(a[i]) < 0 ? k : i;
     }
 
     /**
      *
-     * Heapsort on arrays, performed in-place. Builds a max heap and sorts it
-     * backwards within the same array.
-     *
-     * In-place but not stable.
+     * Detect a sub-array that is already (or very nearly) sorted. When the
+     * first, middle and last elements are in ascending order an insertion sort
+     * is attempted that gives up after {@value #PARTIAL_INSERTION_LIMIT}
+     * element moves; when they are in strictly descending order the sub-array
+     * is scanned for a strictly descending run, which is then reversed. On
+     * unsorted input both checks fail within a few elements.
      *
-     * @param a the Record array to be sorted
+     * @return {@code true} if a[lo, hi) is now sorted
      */
-    public static void inPlaceHeapSort(Record[] a) {
+    private static boolean finishRun(Record[] a, int lo, int hi) {
 
-        int end = a.length - 1;
+        int m = lo + ((hi - lo) >> 1), last = hi - 1;
 
-        /*
-         * Creates a heap out of an array of arbitrary size and permutation
-         */
-        for (int i = end >> 1; i >= 0; --i) {
-            SortingAndSelection.maxHeapBubbleDown(a, i, end);
+        if (a[lo].compareTo(a[m]) <= 0 && a[m].compareTo(a[last]) <= 0) {
+            return partialInsertionSort(a, lo, hi);
         }
 
-        while (end > 0) {
+        if (a[lo].compareTo(a[m]) > 0 && a[m].compareTo(a[last]) > 0) {
+
+            int i = lo + 1;
+
+            while (i < hi && a[i - 1].compareTo(a[i]) > 0) {
+                ++i;
+            }
 
-            Record m = a[0];
+            if (i == hi) {
 
-            a[0] = a[end];
+                for (int j = last; lo < j; ++lo, --j) {
 
-            a[end--] = m;
+                    Record t = a[lo];
+                    a[lo] = a[j];
+                    a[j] = t;
+                }
 
-            SortingAndSelection.maxHeapBubbleDown(a, 0, end);
+                return true;
+            }
         }
+
+        return false;
     }
 
     /**
-     * Adapted from the max heap implementation. Used to fix the heap after
-     * removal of the top element. Continually swap the element at index i with
-     * its maximum child until it is no longer less than either of its children.
-     * In this version, the array is partitioned into two parts, the heap and
-     * the sorted array.
      *
-     * @param heap the Record array to perform on
-     * @param i the index of the element in the array to be moved to its correct
-     * position in the heap
-     * @param end the index of the final element in the heap.
+     * Insertion sort that gives up once it has moved elements a total of
+     * {@value #PARTIAL_INSERTION_LIMIT} places. The range is left a valid
+     * permutation either way.
+     *
+     * @return {@code true} if a[lo, hi) was sorted within the limit
      */
-    private static void maxHeapBubbleDown(Record[] heap, int i, int end) {
+    private static boolean partialInsertionSort(Record[] a, int lo, int hi) {
 
-        Record t;
-        int j;
+        int moves = 0, y;
 
-        while ((2 * i) + 1 <= end) {
+        Record r;
 
-            j = (2 * i) + 1;
+        for (int x = lo + 1; x < hi; ++x) {
 
-            if (j < end && heap[j].compareTo(heap[j + 1]) < 0) {
-                ++j;
+            if (a[x - 1].compareTo(a[x]) <= 0) {
+                continue;
             }
 
-            if (heap[i].compareTo(heap[j]) >= 0) {
-                return;
-            }
+            r = a[x];
+            y = x;
 
-            t = heap[i];
-            heap[i] = heap[j];
-            heap[j] = t;
+            do {
+                a[y] = a[--y];
+            } while (y > lo && a[y - 1].compareTo(r) > 0);
 
-            i = j;
+            a[y] = r;
+
+            moves += x - y;
+
+            if (moves > PARTIAL_INSERTION_LIMIT) {
+                return false;
+            }
         }
+
+        return true;
     }
 
     /**
-     * Bucket sort on arrays.
      *
-     * Stable but not in place.
+     * Introsort on arrays in the order imposed by a Comparator, for orderings
+     * other than the natural order of the keys. The algorithm is the one of
+     * {@link #introSort(Record[])}.
      *
-     * @param a the Record array to be sorted
-     * @param max the maximum value of the known range of keys in the array to
-     * be sorted
+     * In-place but not stable.
      *
+     * @param a the Record array to be sorted
+     * @param c the Comparator that determines the order of the Records
      */
-    public static void bucketSort(Record[] a, int max) {
+    public static void introSort(Record[] a, Comparator<? super Record> c) {
+        introSort(a, 0, a.length, depthLimit(a.length), c);
+    }
 
-        RecordLinkedList[] buckets = new RecordLinkedList[max + 1];
+    /*The Comparator counterparts of the introsort helpers above. They are
+     * kept separate so that the compareTo calls of the natural-order sorts
+     * stay monomorphic*/
 
-        for (int i = 0; i < buckets.length; ++i) {
-            buckets[i] = new RecordLinkedList();
-        }
+    private static void introSort(Record[] a, int lo, int hi, int depth, Comparator<? super Record> c) {
 
-        /*Iterate through the input data set and place all elements in their appropriate bucket*/
-        for (int i = 0; i < a.length; ++i) {
-            buckets[a[i].getKey()].add(a[i]);
-        }
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
 
-        /*Concatenate all buckets together. Since they have been implemented as 
-         * linked-lists, bucket chaining can be done in linear time on the 
-         * number of buckets.
-         */
-        int i = 0;
+            if (depth-- == 0) {
 
-        for (RecordLinkedList b : buckets) {
+                inPlaceHeapSort(a, lo, hi, c);
 
-            Record r = b.getFirstRecord();
+                return;
+            }
 
-            while (r != null) {
+            if (finishRun(a, lo, hi, c)) {
+                return;
+            }
 
-                a[i++] = r;
+            int p = partition(a, lo, hi, pivotIndex(a, lo, hi, c), c);
 
-                r = r.next;
+            if (p - lo < hi - p) {
+                introSort(a, lo, p, depth, c);
+                lo = p + 1;
+            } else {
+                introSort(a, p + 1, hi, depth, c);
+                hi = p;
             }
         }
+
+        insertionSort(a, lo, hi, c);
     }
 
-    /**
-     * Bucket sort on a linked list. Stable but not in-place.
-     *
-     * @param a the "head" node (Record) of the list to be sorted
-     * @param max the maximum value of the known range of keys in the array to
-     * be sorted
-     */
-    public static Record bucketSortLinkedList(Record a, int max) {
+    private static void insertionSort(Record[] a, int lo, int hi, Comparator<? super Record> c) {
 
-        RecordLinkedList[] buckets = new RecordLinkedList[max + 1];
+        Record r;
+        int y;
 
-        for (int i = 0; i < buckets.length; ++i) {
-            buckets[i] = new RecordLinkedList();
+        for (int x = lo + 1; x < hi; ++x) {
+
+            r = a[x];
+            y = x;
+
+            while (y > lo && c.compare(a[y - 1], r) > 0) {
+                a[y] = a[--y];
+            }
+
+            a[y] = r;
         }
+    }
 
-        Record c = a;
+    private static int partition(Record[] a, int lo, int hi, int p, Comparator<? super Record> c) {
 
-        while (c != null) {
+        int last = hi - 1;
 
-            buckets[c.getKey()].add(new Record(c.getKey(), c.value));
+        Record t, pivot = a[p];
 
-            c = c.next;
-        }
+        a[p] = a[lo];
+        a[lo] = pivot;
 
-        RecordLinkedList sortedList = new RecordLinkedList();
+        int i = lo, j = hi;
 
-        for (RecordLinkedList b : buckets) {
-            sortedList.append(b);
-        }
+        while (true) {
 
-        return sortedList.getFirstRecord();
-    }
+            while (c.compare(a[++i], pivot) < 0) {
+                if (i == last) {
+                    break;
+                }
+            }
 
-    /**
-     *
-     * Counting sort on arrays.
+            while (c.compare(pivot, a[--j]) < 0) {
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+
+        a[lo] = a[j];
+        a[j] = pivot;
+
+        return j;
+    }
+
+    private static int pivotIndex(Record[] a, int lo, int hi, Comparator<? super Record> c) {
+
+        int n = hi - lo, m = lo + (n >> 1), last = hi - 1;
+
+        if (n > NINTHER_THRESHOLD) {
+
+            int s = n >> 3;
+
+            return medianOf3(a, medianOf3(a, lo, lo + s, lo + 2 * s, c),
+                    medianOf3(a, m - s, m, m + s, c),
+                    medianOf3(a, last - 2 * s, last - s, last, c), c);
+        }
+
+        return medianOf3(a, lo, m, last, c);
+    }
+
+    private static int medianOf3(Record[] a, int i, int j, int k, Comparator<? super Record> c) {
+
+        if (c.compare(a[i], a[j]) < 0) {
+
+            if (c.compare(a[j], a[k]) < 0) {
+                return j;
+            }
+
+            return c.compare(a[i], a[k]) < 0 ? k : i;
+        }
+
+        if (c.compare(a[k], a[j]) < 0) {
+            return j;
+        }
+
+        return c.compare(a[k], a[i]) < 0 ? k : i;
+    }
+
+    private static boolean finishRun(Record[] a, int lo, int hi, Comparator<? super Record> c) {
+
+        int m = lo + ((hi - lo) >> 1), last = hi - 1;
+
+        if (c.compare(a[lo], a[m]) <= 0 && c.compare(a[m], a[last]) <= 0) {
+            return partialInsertionSort(a, lo, hi, c);
+        }
+
+        if (c.compare(a[lo], a[m]) > 0 && c.compare(a[m], a[last]) > 0) {
+
+            int i = lo + 1;
+
+            while (i < hi && c.compare(a[i - 1], a[i]) > 0) {
+                ++i;
+            }
+
+            if (i == hi) {
+
+                for (int j = last; lo < j; ++lo, --j) {
+
+                    Record t = a[lo];
+                    a[lo] = a[j];
+                    a[j] = t;
+                }
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean partialInsertionSort(Record[] a, int lo, int hi, Comparator<? super Record> c) {
+
+        int moves = 0, y;
+
+        Record r;
+
+        for (int x = lo + 1; x < hi; ++x) {
+
+            if (c.compare(a[x - 1], a[x]) <= 0) {
+                continue;
+            }
+
+            r = a[x];
+            y = x;
+
+            do {
+                a[y] = a[--y];
+            } while (y > lo && c.compare(a[y - 1], r) > 0);
+
+            a[y] = r;
+
+            moves += x - y;
+
+            if (moves > PARTIAL_INSERTION_LIMIT) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void inPlaceHeapSort(Record[] a, int start, int hi, Comparator<? super Record> c) {
+
+        int end = hi - start - 1;
+
+        for (int i = end >> 1; i >= 0; --i) {
+            maxHeapBubbleDown(a, start, i, end, c);
+        }
+
+        while (end > 0) {
+
+            Record m = a[start];
+
+            a[start] = a[start + end];
+
+            a[start + end--] = m;
+
+            maxHeapBubbleDown(a, start, 0, end, c);
+        }
+    }
+
+    private static void maxHeapBubbleDown(Record[] heap, int start, int i, int end,
+            Comparator<? super Record> c) {
+
+        Record t;
+        int j;
+
+        while ((2 * i) + 1 <= end) {
+
+            j = (2 * i) + 1;
+
+            if (j < end && c.compare(heap[start + j], heap[start + j + 1]) < 0) {
+                ++j;
+            }
+
+            if (c.compare(heap[start + i], heap[start + j]) >= 0) {
+                return;
+            }
+
+            t = heap[start + i];
+            heap[start + i] = heap[start + j];
+            heap[start + j] = t;
+
+            i = j;
+        }
+    }
+
+    /**
+     *
+     * Parallel quicksort on arrays in natural key order, using the default
+     * sequential cutoff of {@value #PARALLEL_QUICKSORT_THRESHOLD} elements.
+     * See {@link #parallelQuickSort(Record[], Comparator, ForkJoinPool, int)}.
+     *
+     * In-place but not stable.
+     *
+     * @param a the Record array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void parallelQuickSort(Record[] a, ForkJoinPool pool) {
+        parallelQuickSort(a, null, pool, PARALLEL_QUICKSORT_THRESHOLD);
+    }
+
+    /**
+     *
+     * Parallel quicksort on arrays in the order imposed by a Comparator,
+     * using the default sequential cutoff of
+     * {@value #PARALLEL_QUICKSORT_THRESHOLD} elements.
+     *
+     * In-place but not stable.
+     *
+     * @param a the Record array to be sorted
+     * @param c the Comparator that determines the order of the Records
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void parallelQuickSort(Record[] a, Comparator<? super Record> c, ForkJoinPool pool) {
+        parallelQuickSort(a, c, pool, PARALLEL_QUICKSORT_THRESHOLD);
+    }
+
+    /**
+     *
+     * Parallel quicksort on arrays in the order imposed by a Comparator.
+     *
+     * Each sub-array is partitioned as in introsort, after which its two sides
+     * are sorted as separate fork/join tasks. Sub-arrays of at most threshold
+     * elements are sorted sequentially by introsort. The sort uses only the
+     * threads of the given pool, so its parallelism is that of the pool: a
+     * small dedicated pool keeps a large sort from occupying every core of a
+     * machine that runs other services. The depth limit and the heapsort
+     * fallback carry over to the tasks, so the worst case stays O(n log n).
+     * With a null Comparator the tasks use the natural-order introsort
+     * helpers, whose compareTo calls stay monomorphic.
+     *
+     * In-place but not stable.
+     *
+     * @param a the Record array to be sorted
+     * @param c the Comparator that determines the order of the Records, or
+     * {@code null} for natural key order
+     * @param pool the ForkJoinPool whose threads perform the sort
+     * @param threshold the sub-array size at or below which the tasks stop
+     * forking
+     */
+    public static void parallelQuickSort(Record[] a, Comparator<? super Record> c, ForkJoinPool pool,
+            int threshold) {
+        pool.invoke(new QuickSortTask(a, 0, a.length, depthLimit(a.length), c, Math.max(1, threshold)));
+    }
+
+    /**
+     *
+     * Sorts a[lo, hi) by partitioning it and sorting both sides in parallel,
+     * in natural key order if c is null.
+     */
+    @SuppressWarnings("serial")
+    private static final class QuickSortTask extends RecursiveAction {
+
+        private final Record[] a;
+        private final int lo, hi, depth, threshold;
+        private final Comparator<? super Record> c;
+
+        QuickSortTask(Record[] a, int lo, int hi, int depth, Comparator<? super Record> c, int threshold) {
+
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.depth = depth;
+            this.c = c;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= Math.max(threshold, INSERTION_SORT_THRESHOLD)) {
+
+                if (c == null) {
+                    introSort(a, lo, hi, depth);
+                } else {
+                    introSort(a, lo, hi, depth, c);
+                }
+
+                return;
+            }
+
+            if (depth == 0) {
+
+                if (c == null) {
+                    inPlaceHeapSort(a, lo, hi);
+                } else {
+                    inPlaceHeapSort(a, lo, hi, c);
+                }
+
+                return;
+            }
+
+            int p;
+
+            if (c == null) {
+
+                if (finishRun(a, lo, hi)) {
+                    return;
+                }
+
+                p = partition(a, lo, hi, pivotIndex(a, lo, hi));
+            } else {
+
+                if (finishRun(a, lo, hi, c)) {
+                    return;
+                }
+
+                p = partition(a, lo, hi, pivotIndex(a, lo, hi, c), c);
+            }
+
+            invokeAll(new QuickSortTask(a, lo, p, depth - 1, c, threshold),
+                    new QuickSortTask(a, p + 1, hi, depth - 1, c, threshold));
+        }
+    }
+
+    /**
+     *
+     * Quicksort on arrays with three-way partitioning, for inputs with many
+     * duplicate keys.
+     *
+     * Each sub-array is split into the elements less than, equal to and
+     * greater than the pivot using Bentley and McIlroy's scheme: keys equal to
+     * the pivot are swapped out to both ends of the sub-array during the scan
+     * and brought back to the middle afterwards, so they are never looked at
+     * again. The number of comparisons drops from O(n log n) to O(n log m) for
+     * n keys with m distinct values, which is close to linear when only a
+     * handful of keys are present. Pivot selection, the insertion sort cutoff,
+     * the recursion on the smaller side and the heapsort fallback are the same
+     * as in {@link #introSort(Record[])}.
+     *
+     * In-place but not stable.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void quickSort3Way(Record[] a) {
+        quickSort3Way(a, 0, a.length, depthLimit(a.length));
+    }
+
+    private static void quickSort3Way(Record[] a, int lo, int hi, int depth) {
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            if (depth-- == 0) {
+
+                inPlaceHeapSort(a, lo, hi);
+
+                return;
+            }
+
+            long bounds = partition3Way(a, lo, hi);
+
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+
+            if (lt - lo < hi - gt) {
+                quickSort3Way(a, lo, lt, depth);
+                lo = gt;
+            } else {
+                quickSort3Way(a, gt, hi, depth);
+                hi = lt;
+            }
+        }
+
+        insertionSort(a, lo, hi);
+    }
+
+    /**
+     *
+     * Bentley-McIlroy three-way partition of a[lo, hi) around a
+     * median-of-three or ninther pivot. Afterwards a[lo, lt) is less than the
+     * pivot, a[lt, gt) is equal to it and a[gt, hi) is greater.
+     *
+     * @return lt in the upper and gt in the lower 32 bits of a long, so that
+     * both bounds can be returned without allocating
+     */
+    private static long partition3Way(Record[] a, int lo, int hi) {
+
+        int last = hi - 1, p = pivotIndex(a, lo, hi);
+
+        Record t, pivot = a[p];
+
+        a[p] = a[lo];
+        a[lo] = pivot;
+
+        /*a[lo, l] and a(r, last] collect the keys equal to the pivot*/
+        int i = lo, j = hi, l = lo, r = hi;
+
+        while (true) {
+
+            while (a[++i].compareTo(pivot) < 0) {
+                if (i == last) {
+                    break;
+                }
+            }
+
+            while (pivot.compareTo(a[--j]) < 0) {
+            }
+
+            if (i == j && a[i].compareTo(pivot) == 0) {
+
+                t = a[++l];
+                a[l] = a[i];
+                a[i] = t;
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+
+            if (a[i].compareTo(pivot) == 0) {
+
+                t = a[++l];
+                a[l] = a[i];
+                a[i] = t;
+            }
+
+            if (a[j].compareTo(pivot) == 0) {
+
+                t = a[--r];
+                a[r] = a[j];
+                a[j] = t;
+            }
+        }
+
+        /*Swap the equal keys from both ends into the middle*/
+        i = j + 1;
+
+        for (int k = lo; k <= l; ++k, --j) {
+
+            t = a[k];
+            a[k] = a[j];
+            a[j] = t;
+        }
+
+        for (int k = last; k >= r; --k, ++i) {
+
+            t = a[k];
+            a[k] = a[i];
+            a[i] = t;
+        }
+
+        return ((long) (j + 1) << 32) | i;
+    }
+
+    /**
+     *
+     * Mergesort on arrays.
+     *
+     * Stable but not in-place. A single auxiliary array of n elements is
+     * allocated per call; use {@link #mergeSort(Record[], Record[])} to supply
+     * a reusable one instead.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void mergeSort(Record[] a) {
+        mergeSort(a, new Record[a.length]);
+    }
+
+    /**
+     *
+     * Mergesort on arrays using a caller-supplied auxiliary array.
+     *
+     * The input is copied into the scratch array once and the two arrays then
+     * swap roles at every level of the recursion, each merge reading the
+     * sorted halves out of one array and writing the result into the other,
+     * so no further copying or allocation takes place. Halves that are
+     * already in order relative to each other are copied across without
+     * merging, and short sub-arrays are finished with insertion sort. Reusing
+     * the same scratch array across calls makes the sort allocation-free.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     * @param scratch an array at least as long as a. Its contents are
+     * overwritten and it is left holding references to the Records of a.
+     * @throws IllegalArgumentException if scratch is shorter than a
+     */
+    public static void mergeSort(Record[] a, Record[] scratch) {
+
+        if (scratch.length < a.length) {
+            throw new IllegalArgumentException("scratch array is shorter than the input array");
+        }
+
+        System.arraycopy(a, 0, scratch, 0, a.length);
+
+        mergeSort(scratch, a, 0, a.length);
+    }
+
+    /**
+     *
+     * Sort dst[lo, hi) using src as auxiliary space. Both arrays must hold the
+     * same elements in [lo, hi) on entry; the contents of src in that range
+     * are undefined on return.
+     *
+     * @param src the auxiliary Record array
+     * @param dst the Record array that receives the sorted run
+     * @param lo the first index of the range to be sorted
+     * @param hi one past the last index of the range to be sorted
+     */
+    private static void mergeSort(Record[] src, Record[] dst, int lo, int hi) {
+
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+
+            insertionSort(dst, lo, hi);
+
+            return;
+        }
+
+        int m = lo + ((hi - lo) >> 1);
+
+        /*Sort both halves into src, using dst as their auxiliary space*/
+        mergeSort(dst, src, lo, m);
+        mergeSort(dst, src, m, hi);
+
+        if (src[m - 1].compareTo(src[m]) <= 0) { /*the halves are already in order*/
+
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+
+            return;
+        }
+
+        merge(src, lo, m, m, hi, dst, lo);
+    }
+
+    /**
+     *
+     * Merge two sorted runs of a source array into a destination array.
+     * Elements of the left run are taken first on equal keys, which keeps the
+     * merge stable.
+     *
+     * @param src the Record array holding both runs
+     * @param lo1 the first index of the left run
+     * @param hi1 one past the last index of the left run
+     * @param lo2 the first index of the right run
+     * @param hi2 one past the last index of the right run
+     * @param dst the Record array the merged run is written to
+     * @param k the index in dst of the first merged element
+     */
+    private static void merge(Record[] src, int lo1, int hi1, int lo2, int hi2,
+            Record[] dst, int k) {
+
+        while (lo1 < hi1 && lo2 < hi2) {
+            dst[k++] = src[lo1].compareTo(src[lo2]) <= 0 ? src[lo1++] : src[lo2++];
+        }
+
+        System.arraycopy(src, lo1, dst, k, hi1 - lo1);
+        System.arraycopy(src, lo2, dst, k + (hi1 - lo1), hi2 - lo2);
+    }
+
+    /**
+     *
+     * @param a the sorted Record array to search
+     * @param lo the first index of the range to search
+     * @param hi one past the last index of the range to search
+     * @param r the Record to compare against
+     * @return the first index in [lo, hi) whose Record is not less than r, or
+     * hi if there is none
+     */
+    private static int lowerBound(Record[] a, int lo, int hi, Record r) {
+
+        while (lo < hi) {
+
+            int m = lo + ((hi - lo) >> 1);
+
+            if (a[m].compareTo(r) < 0) {
+                lo = m + 1;
+            } else {
+                hi = m;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     *
+     * @param a the sorted Record array to search
+     * @param lo the first index of the range to search
+     * @param hi one past the last index of the range to search
+     * @param r the Record to compare against
+     * @return the first index in [lo, hi) whose Record is greater than r, or
+     * hi if there is none
+     */
+    private static int upperBound(Record[] a, int lo, int hi, Record r) {
+
+        while (lo < hi) {
+
+            int m = lo + ((hi - lo) >> 1);
+
+            if (a[m].compareTo(r) <= 0) {
+                lo = m + 1;
+            } else {
+                hi = m;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     *
+     * Parallel mergesort on arrays using the default sequential cutoff of
+     * {@value #PARALLEL_MERGE_THRESHOLD} elements.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void parallelMergeSort(Record[] a, ForkJoinPool pool) {
+        parallelMergeSort(a, pool, PARALLEL_MERGE_THRESHOLD);
+    }
+
+    /**
+     *
+     * Parallel mergesort on arrays.
+     *
+     * The two halves of the array are sorted as separate fork/join tasks and
+     * then merged in parallel: the larger of the two sorted runs is split at
+     * its middle element, the position of that element in the smaller run is
+     * found by binary search, the element is written straight to its final
+     * place and the two remaining pairs of sub-runs are merged as independent
+     * tasks. Sorts and merges of no more than threshold elements are done
+     * sequentially. A single auxiliary array of n elements is used, with the
+     * sorted runs alternating between it and the input at each level.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     * @param threshold the number of elements at or below which sorting and
+     * merging fall back to the sequential algorithms
+     */
+    public static void parallelMergeSort(Record[] a, ForkJoinPool pool, int threshold) {
+
+        if (a.length > 1) {
+            pool.invoke(new MergeSortTask(a, new Record[a.length], 0, a.length,
+                    false, Math.max(1, threshold)));
+        }
+    }
+
+    /**
+     *
+     * Sorts the elements of a in [lo, hi) and leaves the sorted run either in
+     * a or, when intoB is set, in the same range of the auxiliary array b.
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeSortTask extends RecursiveAction {
+
+        private final Record[] a, b;
+        private final int lo, hi, threshold;
+        private final boolean intoB;
+
+        MergeSortTask(Record[] a, Record[] b, int lo, int hi, boolean intoB, int threshold) {
+            this.a = a;
+            this.b = b;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoB = intoB;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= threshold) {
+
+                System.arraycopy(a, lo, b, lo, hi - lo);
+
+                if (intoB) {
+                    mergeSort(a, b, lo, hi);
+                } else {
+                    mergeSort(b, a, lo, hi);
+                }
+
+                return;
+            }
+
+            int m = lo + ((hi - lo) >> 1);
+
+            /*Sort both halves into the array that is not the destination of 
+             * this task, then merge them back across into the destination*/
+            invokeAll(new MergeSortTask(a, b, lo, m, !intoB, threshold),
+                    new MergeSortTask(a, b, m, hi, !intoB, threshold));
+
+            new MergeTask(intoB ? a : b, lo, m, m, hi, intoB ? b : a, lo, threshold).invoke();
+        }
+    }
+
+    /**
+     *
+     * Merges the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst starting
+     * at index k.
+     */
+    @SuppressWarnings("serial")
+    private static final class MergeTask extends RecursiveAction {
+
+        private final Record[] src, dst;
+        private final int lo1, hi1, lo2, hi2, k, threshold;
+
+        MergeTask(Record[] src, int lo1, int hi1, int lo2, int hi2, Record[] dst,
+                int k, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.k = k;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+
+            int n1 = hi1 - lo1, n2 = hi2 - lo2;
+
+            if (n1 + n2 <= threshold) {
+
+                merge(src, lo1, hi1, lo2, hi2, dst, k);
+
+                return;
+            }
+
+            int m, s, p;
+
+            if (n1 >= n2) {
+
+                /*Right elements equal to the split element must follow it, so 
+                 * the right run is split at the first element not less than it*/
+                m = lo1 + (n1 >> 1);
+                s = lowerBound(src, lo2, hi2, src[m]);
+                p = k + (m - lo1) + (s - lo2);
+
+                dst[p] = src[m];
+
+                invokeAll(new MergeTask(src, lo1, m, lo2, s, dst, k, threshold),
+                        new MergeTask(src, m + 1, hi1, s, hi2, dst, p + 1, threshold));
+            } else {
+
+                /*Left elements equal to the split element must precede it, so 
+                 * the left run is split at the first element greater than it*/
+                m = lo2 + (n2 >> 1);
+                s = upperBound(src, lo1, hi1, src[m]);
+                p = k + (s - lo1) + (m - lo2);
+
+                dst[p] = src[m];
+
+                invokeAll(new MergeTask(src, lo1, s, lo2, m, dst, k, threshold),
+                        new MergeTask(src, s, hi1, m + 1, hi2, dst, p + 1, threshold));
+            }
+        }
+    }
+
+    /**
+     *
+     * Powersort on arrays, an adaptive mergesort for input that is already
+     * partly in order.
+     *
+     * The array is scanned for natural runs: maximal ascending stretches, and
+     * strictly descending ones, which are reversed in place. Runs shorter
+     * than {@value #MIN_RUN} elements are extended to that length with binary
+     * insertion sort. Each new run is given a power, the depth at which the
+     * boundary between it and the previous run would sit in a perfectly
+     * balanced merge tree over the whole array, and runs on the stack with a
+     * greater power are merged first. This keeps the merge tree within a few
+     * percent of optimal for any pattern of run lengths. Merges skip the
+     * prefix and suffix that are already in place, buffer only the shorter
+     * run and switch to galloping (exponential search) when one run keeps
+     * winning, so long stretches are moved with System.arraycopy.
+     *
+     * Sorted and reverse-sorted input takes O(n) time, and any input
+     * O(n log n). Stable but not in-place; at most n / 2 auxiliary slots are
+     * allocated, and none for input that is a single run.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void powerSort(Record[] a) {
+
+        if (a.length > 1) {
+            new PowerSort(a).sort();
+        }
+    }
+
+    /**
+     *
+     * The state of one powersort: the run stack, the merge buffer and the
+     * current galloping threshold.
+     */
+    private static final class PowerSort {
+
+        private final Record[] a;
+        private final int n;
+        /*Run i of the stack covers [start[i], start[i + 1]), the run above it
+         * starting where it ends; power[i] is the power of the boundary at the
+         * end of run i. Powers strictly increase up the stack, so it holds at
+         * most one run per bit of n*/
+        private final int[] start = new int[Integer.SIZE + 1];
+        private final int[] power = new int[Integer.SIZE + 1];
+        private Record[] buffer = new Record[0];
+        private int minGallop = MIN_GALLOP;
+
+        PowerSort(Record[] a) {
+
+            this.a = a;
+            this.n = a.length;
+        }
+
+        void sort() {
+
+            int top = 0, lo = 0, mid = extendRun(0);
+
+            while (mid < n) {
+
+                int hi = extendRun(mid), p = nodePower(lo, mid, hi);
+
+                while (top > 0 && power[top - 1] > p) {
+                    lo = start[--top];
+                    mergeRuns(lo, start[top + 1], mid);
+                }
+
+                start[top] = lo;
+                start[top + 1] = mid;
+                power[top++] = p;
+
+                lo = mid;
+                mid = hi;
+            }
+
+            while (top > 0) {
+                lo = start[--top];
+                mergeRuns(lo, start[top + 1], n);
+            }
+        }
+
+        /**
+         *
+         * Find the run starting at lo, reverse it if it is descending and
+         * extend it to {@value #MIN_RUN} elements if it is shorter.
+         *
+         * @return one past the last index of the run
+         */
+        private int extendRun(int lo) {
+
+            int hi = lo + 1;
+
+            if (hi == n) {
+                return hi;
+            }
+
+            if (a[hi].compareTo(a[lo]) < 0) { /*strictly descending*/
+
+                while (++hi < n && a[hi].compareTo(a[hi - 1]) < 0) {
+                }
+
+                for (int i = lo, j = hi - 1; i < j; ++i, --j) {
+
+                    Record t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            } else {
+                while (++hi < n && a[hi].compareTo(a[hi - 1]) >= 0) {
+                }
+            }
+
+            if (hi - lo < MIN_RUN) {
+
+                int end = Math.min(n, lo + MIN_RUN);
+
+                binaryInsertionSort(a, lo, hi, end);
+
+                hi = end;
+            }
+
+            return hi;
+        }
+
+        /**
+         *
+         * @return the power of the boundary between the adjacent runs
+         * [lo, mid) and [mid, hi): the first bit in which the binary fractions
+         * of their midpoints, relative to n, differ
+         */
+        private int nodePower(int lo, int mid, int hi) {
+
+            long twoN = 2L * n;
+
+            int l = (int) ((((long) lo + mid) << 31) / twoN);
+            int r = (int) ((((long) mid + hi) << 31) / twoN);
+
+            return Integer.numberOfLeadingZeros(l ^ r);
+        }
+
+        /**
+         *
+         * Merge the adjacent sorted runs [lo, mid) and [mid, hi).
+         */
+        private void mergeRuns(int lo, int mid, int hi) {
+
+            /*Elements of the left run not greater than the first element of
+             * the right run are already in place, as are elements of the right
+             * run not less than the last element of the left run*/
+            lo = gallopFromLo(a[mid], a, lo, mid, true);
+
+            if (lo == mid) {
+                return;
+            }
+
+            hi = gallopFromHi(a[mid - 1], a, mid, hi, false);
+
+            if (mid - lo <= hi - mid) {
+                mergeLo(lo, mid, hi);
+            } else {
+                mergeHi(lo, mid, hi);
+            }
+        }
+
+        /**
+         *
+         * Merge front to back, with the left run moved into the buffer.
+         */
+        private void mergeLo(int lo, int mid, int hi) {
+
+            int n1 = mid - lo;
+
+            Record[] t = buffer(n1);
+
+            System.arraycopy(a, lo, t, 0, n1);
+
+            /*t[i, n1) and a[j, hi) remain to be merged into a[k, hi)*/
+            int i = 0, j = mid, k = lo;
+
+            while (i < n1 && j < hi) {
+
+                int wins1 = 0, wins2 = 0;
+
+                /*One element at a time until a run wins minGallop times in a
+                 * row*/
+                while (i < n1 && j < hi) {
+
+                    if (a[j].compareTo(t[i]) < 0) {
+
+                        a[k++] = a[j++];
+
+                        wins1 = 0;
+
+                        if (++wins2 >= minGallop) {
+                            break;
+                        }
+                    } else {
+
+                        a[k++] = t[i++];
+
+                        wins2 = 0;
+
+                        if (++wins1 >= minGallop) {
+                            break;
+                        }
+                    }
+                }
+
+                /*Galloping: locate each run's next block in the other run by
+                 * exponential search and move it in one copy*/
+                while (i < n1 && j < hi) {
+
+                    int e = gallopFromLo(a[j], t, i, n1, true), c1 = e - i;
+
+                    System.arraycopy(t, i, a, k, c1);
+
+                    k += c1;
+                    i = e;
+
+                    if (i == n1) {
+                        break;
+                    }
+
+                    a[k++] = a[j++];
+
+                    if (j == hi) {
+                        break;
+                    }
+
+                    e = gallopFromLo(t[i], a, j, hi, false);
+
+                    int c2 = e - j;
+
+                    System.arraycopy(a, j, a, k, c2);
+
+                    k += c2;
+                    j = e;
+
+                    if (j == hi) {
+                        break;
+                    }
+
+                    a[k++] = t[i++];
+
+                    if (c1 < MIN_GALLOP && c2 < MIN_GALLOP) { /*galloping does not pay off here*/
+
+                        minGallop += 2;
+
+                        break;
+                    }
+
+                    if (minGallop > 1) {
+                        --minGallop;
+                    }
+                }
+            }
+
+            /*Whatever is left of the right run is already in place*/
+            System.arraycopy(t, i, a, k, n1 - i);
+        }
+
+        /**
+         *
+         * Merge back to front, with the right run moved into the buffer.
+         */
+        private void mergeHi(int lo, int mid, int hi) {
+
+            int n2 = hi - mid;
+
+            Record[] t = buffer(n2);
+
+            System.arraycopy(a, mid, t, 0, n2);
+
+            /*a[lo, i] and t[0, j] remain to be merged into a[lo, k]*/
+            int i = mid - 1, j = n2 - 1, k = hi - 1;
+
+            while (i >= lo && j >= 0) {
+
+                int wins1 = 0, wins2 = 0;
+
+                while (i >= lo && j >= 0) {
+
+                    if (t[j].compareTo(a[i]) < 0) {
+
+                        a[k--] = a[i--];
+
+                        wins2 = 0;
+
+                        if (++wins1 >= minGallop) {
+                            break;
+                        }
+                    } else {
+
+                        a[k--] = t[j--];
+
+                        wins1 = 0;
+
+                        if (++wins2 >= minGallop) {
+                            break;
+                        }
+                    }
+                }
+
+                while (i >= lo && j >= 0) {
+
+                    int e = gallopFromHi(t[j], a, lo, i + 1, true), c1 = i + 1 - e;
+
+                    System.arraycopy(a, e, a, k - c1 + 1, c1);
+
+                    k -= c1;
+                    i = e - 1;
+
+                    if (i < lo) {
+                        break;
+                    }
+
+                    a[k--] = t[j--];
+
+                    if (j < 0) {
+                        break;
+                    }
+
+                    e = gallopFromHi(a[i], t, 0, j + 1, false);
+
+                    int c2 = j + 1 - e;
+
+                    System.arraycopy(t, e, a, k - c2 + 1, c2);
+
+                    k -= c2;
+                    j = e - 1;
+
+                    if (j < 0) {
+                        break;
+                    }
+
+                    a[k--] = a[i--];
+
+                    if (c1 < MIN_GALLOP && c2 < MIN_GALLOP) {
+
+                        minGallop += 2;
+
+                        break;
+                    }
+
+                    if (minGallop > 1) {
+                        --minGallop;
+                    }
+                }
+            }
+
+            /*Whatever is left of the left run is already in place*/
+            System.arraycopy(t, 0, a, lo, j + 1);
+        }
+
+        /**
+         *
+         * @return a buffer of at least m elements. It grows geometrically up
+         * to n / 2, the most a merge can need.
+         */
+        private Record[] buffer(int m) {
+
+            if (buffer.length < m) {
+                buffer = new Record[Math.max(m, Math.min(n >>> 1, buffer.length << 1))];
+            }
+
+            return buffer;
+        }
+    }
+
+    /**
+     *
+     * Sort a[lo, hi), whose prefix a[lo, sorted) is already sorted, by
+     * inserting each remaining element at the position found by binary
+     * search. Stable: an element goes after all equal ones.
+     */
+    private static void binaryInsertionSort(Record[] a, int lo, int sorted, int hi) {
+
+        for (int x = sorted; x < hi; ++x) {
+
+            Record r = a[x];
+
+            int y = upperBound(a, lo, x, r);
+
+            System.arraycopy(a, y, a, y + 1, x - y);
+
+            a[y] = r;
+        }
+    }
+
+    /**
+     *
+     * Locate a Record in the sorted range [lo, hi) by exponential search from
+     * lo followed by binary search, which takes O(log d) comparisons when the
+     * answer lies d elements from lo.
+     *
+     * @param r the Record to compare against
+     * @param upper {@code true} to find the first element greater than r,
+     * {@code false} for the first element not less than r
+     * @return the index found, or hi if there is none
+     */
+    private static int gallopFromLo(Record r, Record[] a, int lo, int hi, boolean upper) {
+
+        int c = upper ? 1 : 0, ok = lo, probe = lo;
+
+        long step = 1;
+
+        /*Elements before ok compare below c to r; probe is the next guess*/
+        while (probe < hi && a[probe].compareTo(r) < c) {
+
+            ok = probe + 1;
+            probe = hi - probe > step ? probe + (int) step : hi;
+            step <<= 1;
+        }
+
+        return upper ? upperBound(a, ok, probe, r) : lowerBound(a, ok, probe, r);
+    }
+
+    /**
+     *
+     * The mirror image of {@link #gallopFromLo}: the exponential search
+     * starts from hi - 1 and moves down.
+     */
+    private static int gallopFromHi(Record r, Record[] a, int lo, int hi, boolean upper) {
+
+        int c = upper ? 1 : 0, notOk = hi, probe = hi - 1;
+
+        long step = 1;
+
+        /*Elements from notOk on do not compare below c to r*/
+        while (probe >= lo && a[probe].compareTo(r) >= c) {
+
+            notOk = probe;
+            probe = probe - lo >= step ? probe - (int) step : lo - 1;
+            step <<= 1;
+        }
+
+        return upper ? upperBound(a, probe + 1, notOk, r) : lowerBound(a, probe + 1, notOk, r);
+    }
+
+    /**
+     *
+     * Mergesort on linked lists. In-place and stable. An ideal algorithm for
+     * sorting linked lists due to stability, a small extra space factor being
+     * used, and being fast even compared to quicksort adapted for linked lists.
+     *
+     * @param c the "head" node (Record) of the list to be sorted
+     * @return the sorted linked list
+     */
+    public static Record mergeSortLinkedList(Record c) {
+
+        if (c == null || c.next == null) {
+            return c; /*return a one-element or empty list*/
+        }
+
+        Record a = c, b = c.next;
+
+        while (b != null && b.next != null) {
+
+            c = c.next; /*Move forward one record*/
+
+            b = b.next.next; /*Move forward two records ahead*/
+        }
+
+        b = c.next;
+        c.next = null;/*Sever the end of list 'a'*/
+        b.prev = null;/*Sever the beginning of list 'b'*/
+
+        return listMerge(mergeSortLinkedList(a), mergeSortLinkedList(b));
+    }
+
+    /**
+     *
+     * Merge two sorted linked lists together.
+     *
+     * @param a the "head" node (Record) first list to merge
+     * @param b the "head" node (Record) second list to merge
+     *
+     * @return the "head" node (Record) in the merged list
+     */
+    private static Record listMerge(Record a, Record b) {
+
+        Record d, c; /*the head of the merged list is the smaller head*/
+
+        if (a.compareTo(b) <= 0) {
+            d = a;
+            a = a.next;
+        } else {
+            d = b;
+            b = b.next;
+        }
+
+        c = d;
+
+        while (a != null && b != null) {
+
+            if (a.compareTo(b) <= 0) {
+                c.next = a;
+                a.prev = c;
+                c = a;
+                a = a.next;
+            } else {
+                c.next = b;
+                b.prev = c;
+                c = b;
+                b = b.next;
+            }
+        }
+
+        c.next = (a == null ? b : a);
+        c.next.prev = c;
+
+        d.prev = null;
+        return d;
+    }
+
+    /**
+     *
+     * Heapsort on arrays. Create a min heap out of an arbitrary array of and
+     * repeatedly select-and-remove the top (minimum) element of the heap. The
+     * heap is built bottom-up in O(n) time and drained without resizing.
+     *
+     * This implementation is neither in-place nor stable.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void heapSort(Record[] a) {
+        new MinHeap(a).drainTo(a);
+    }
+
+    /**
+     *
+     * Heapsort on arrays using a min {@link DaryHeap}, which compares the keys
+     * held in its own int array instead of calling compareTo on the Records.
+     * A d of 4 or 8 gives a shallower heap than the binary one used by
+     * {@link #heapSort(Record[])} and is usually faster on large arrays.
+     *
+     * This implementation is neither in-place nor stable.
+     *
+     * @param a the Record array to be sorted
+     * @param d the number of children of every heap node
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public static void heapSort(Record[] a, int d) {
+        DaryHeap.min(d, a).drainTo(a);
+    }
+
+    /**
+     *
+     * Heapsort on arrays, performed in-place. Builds a max heap and sorts it
+     * backwards within the same array.
+     *
+     * In-place but not stable.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void inPlaceHeapSort(Record[] a) {
+        inPlaceHeapSort(a, 0, a.length);
+    }
+
+    /**
+     *
+     * In-place heapsort on a range of an array. Also used as the worst-case
+     * fallback of {@link #introSort(Record[])}.
+     *
+     * @param a the Record array to be sorted
+     * @param start the first index of the range to be sorted
+     * @param hi one past the last index of the range to be sorted
+     */
+    private static void inPlaceHeapSort(Record[] a, int start, int hi) {
+
+        int end = hi - start - 1;
+
+        /*
+         * Creates a heap out of an array of arbitrary size and permutation
+         */
+        for (int i = end >> 1; i >= 0; --i) {
+            SortingAndSelection.maxHeapBubbleDown(a, start, i, end);
+        }
+
+        while (end > 0) {
+
+            Record m = a[start];
+
+            a[start] = a[start + end];
+
+            a[start + end--] = m;
+
+            SortingAndSelection.maxHeapBubbleDown(a, start, 0, end);
+        }
+    }
+
+    /**
+     * Adapted from the max heap implementation. Used to fix the heap after
+     * removal of the top element. Continually swap the element at index i with
+     * its maximum child until it is no longer less than either of its children.
+     * In this version, the array is partitioned into two parts, the heap and
+     * the sorted array.
+     *
+     * @param heap the Record array to perform on
+     * @param start the index in the array of the root of the heap; i and end
+     * are relative to it
+     * @param i the index of the element in the heap to be moved to its correct
+     * position in the heap
+     * @param end the index of the final element in the heap.
+     */
+    private static void maxHeapBubbleDown(Record[] heap, int start, int i, int end) {
+
+        Record t;
+        int j;
+
+        while ((2 * i) + 1 <= end) {
+
+            j = (2 * i) + 1;
+
+            if (j < end && heap[start + j].compareTo(heap[start + j + 1]) < 0) {
+                ++j;
+            }
+
+            if (heap[start + i].compareTo(heap[start + j]) >= 0) {
+                return;
+            }
+
+            t = heap[start + i];
+            heap[start + i] = heap[start + j];
+            heap[start + j] = t;
+
+            i = j;
+        }
+    }
+
+    /**
+     * Bucket sort on arrays.
+     *
+     * Stable but not in place.
+     *
+     * @param a the Record array to be sorted
+     * @param max the maximum value of the known range of keys in the array to
+     * be sorted
+     *
+     */
+    public static void bucketSort(Record[] a, int max) {
+
+        RecordLinkedList[] buckets = new RecordLinkedList[max + 1];
+
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new RecordLinkedList();
+        }
+
+        /*Iterate through the input data set and place all elements in their appropriate bucket*/
+        for (int i = 0; i < a.length; ++i) {
+            buckets[a[i].getKey()].add(a[i]);
+        }
+
+        /*Concatenate all buckets together. Since they have been implemented as 
+         * linked-lists, bucket chaining can be done in linear time on the 
+         * number of buckets.
+         */
+        int i = 0;
+
+        for (RecordLinkedList b : buckets) {
+
+            Record r = b.getFirstRecord();
+
+            while (r != null) {
+
+                a[i++] = r;
+
+                r = r.next;
+            }
+        }
+    }
+
+    /**
+     * Bucket sort on a linked list. Stable but not in-place.
+     *
+     * @param a the "head" node (Record) of the list to be sorted
+     * @param max the maximum value of the known range of keys in the array to
+     * be sorted
+     */
+    public static Record bucketSortLinkedList(Record a, int max) {
+
+        RecordLinkedList[] buckets = new RecordLinkedList[max + 1];
+
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new RecordLinkedList();
+        }
+
+        Record c = a;
+
+        while (c != null) {
+
+            buckets[c.getKey()].add(new Record(c.getKey(), c.value));
+
+            c = c.next;
+        }
+
+        RecordLinkedList sortedList = new RecordLinkedList();
+
+        for (RecordLinkedList b : buckets) {
+            sortedList.append(b);
+        }
+
+        return sortedList.getFirstRecord();
+    }
+
+    /**
+     *
+     * Bucket sort on arrays that allocates no node per bucket. The keys are
+     * scanned for their range [min, max], which is divided into at most
+     * bucketCount buckets of 2^s keys each, for the smallest s that needs no
+     * more. No more buckets than Records are used, as the rest could only be
+     * empty. Each bucket is a chain of array indices kept in two int arrays,
+     * one with the first index of every bucket and one with the next index of
+     * every element, and the chains are walked in bucket order into a single
+     * auxiliary array. When a bucket spans more than one key its Records are
+     * then mergesorted, so bucket counts far below the key range still sort
+     * correctly, with small buckets finished by insertion sort. The links of
+     * the Records are not touched.
+     *
+     * Stable but not in-place. O(n + bucketCount) time if every bucket holds
+     * a single key.
+     *
+     * @param a the Record array to be sorted
+     * @param bucketCount the maximum number of buckets to use
+     * @throws IllegalArgumentException if bucketCount is less than 1
+     */
+    public static void indexBucketSort(Record[] a, int bucketCount) {
+
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException("bucket count must be at least 1");
+        }
+
+        int n = a.length;
+
+        if (n < 2) {
+            return;
+        }
+
+        int min = a[0].key, max = min;
+
+        for (int i = 1; i < n; ++i) {
+
+            int k = a[i].key;
+
+            if (k < min) {
+                min = k;
+            } else if (k > max) {
+                max = k;
+            }
+        }
+
+        int shift = bucketShift((long) max - min, Math.min(bucketCount, n)),
+                buckets = (int) (((long) max - min) >>> shift) + 1;
+
+        int[] head = new int[buckets], next = new int[n];
+
+        Arrays.fill(head, -1);
+
+        /*Push the Records in reverse, so that every chain lists its Records in
+         * input order*/
+        for (int i = n - 1; i >= 0; --i) {
+
+            int b = (int) (((long) a[i].key - min) >>> shift);
+
+            next[i] = head[b];
+            head[b] = i;
+        }
+
+        Record[] b = new Record[n];
+
+        int k = 0;
+
+        for (int d = 0; d < buckets; ++d) {
+
+            int start = k;
+
+            for (int i = head[d]; i >= 0; i = next[i]) {
+                b[k++] = a[i];
+            }
+
+            head[d] = start; /*head now holds the index of the first Record of each bucket*/
+        }
+
+        System.arraycopy(b, 0, a, 0, n);
+
+        if (shift > 0) {
+            for (int d = 0; d < buckets; ++d) {
+
+                int lo = head[d], hi = d + 1 < buckets ? head[d + 1] : n;
+
+                if (hi - lo > 1) {
+                    mergeSort(b, a, lo, hi);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * Bucket sort on a linked list that relinks the Records of the list
+     * instead of copying them. Buckets are chosen as in
+     * {@link #indexBucketSort(Record[], int)}; each is a chain of the
+     * original Records held by its first and last node, Records are appended
+     * in list order, buckets that span more than one key are mergesorted, and
+     * the buckets are then joined and their prev links restored. Besides two
+     * arrays of one reference per bucket no memory is allocated per Record.
+     *
+     * Stable and in-place.
+     *
+     * @param head the "head" node (Record) of the list to be sorted
+     * @param bucketCount the maximum number of buckets to use
+     * @return the "head" node (Record) of the sorted list
+     * @throws IllegalArgumentException if bucketCount is less than 1
+     */
+    public static Record bucketSortLinkedListInPlace(Record head, int bucketCount) {
+
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException("bucket count must be at least 1");
+        }
+
+        if (head == null || head.next == null) {
+            return head;
+        }
+
+        int min = head.key, max = min, n = 1;
+
+        for (Record r = head.next; r != null; r = r.next, ++n) {
+
+            if (r.key < min) {
+                min = r.key;
+            } else if (r.key > max) {
+                max = r.key;
+            }
+        }
+
+        int shift = bucketShift((long) max - min, Math.min(bucketCount, n)),
+                buckets = (int) (((long) max - min) >>> shift) + 1;
+
+        Record[] first = new Record[buckets], last = new Record[buckets];
+
+        Record r = head, next;
+
+        while (r != null) {
+
+            next = r.next;
+
+            int b = (int) (((long) r.key - min) >>> shift);
+
+            r.next = null;
+
+            if (last[b] == null) {
+                first[b] = r;
+            } else {
+                last[b].next = r;
+            }
+
+            last[b] = r;
+
+            r = next;
+        }
+
+        Record sorted = null, tail = null;
+
+        for (int b = 0; b < buckets; ++b) {
+
+            Record h = first[b];
+
+            if (h == null) {
+                continue;
+            }
+
+            if (shift > 0 && h.next != null) {
+                h = mergeSortLinkedList(h);
+            }
+
+            if (tail == null) {
+                sorted = h;
+            } else {
+                tail.next = h;
+            }
+
+            /*Walk the bucket to restore its prev links and find its end*/
+            for (r = h; r != null; r = r.next) {
+
+                r.prev = tail;
+                tail = r;
+            }
+        }
+
+        return sorted;
+    }
+
+    /**
+     *
+     * @param span the difference between the largest and the smallest key
+     * @param bucketCount the maximum number of buckets
+     * @return the smallest s for which buckets of 2^s keys cover span + 1
+     * keys with at most bucketCount buckets
+     */
+    private static int bucketShift(long span, int bucketCount) {
+
+        int s = 0;
+
+        while ((span >>> s) >= bucketCount) {
+            ++s;
+        }
+
+        return s;
+    }
+
+    /**
+     *
+     * Counting sort on arrays.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     * @param max the maximum value of the known range of keys in the array to
+     * be sorted
+     */
+    public static void countingSort(Record[] a, int max) {
+        countingSort(a, 0, max);
+    }
+
+    /**
+     *
+     * Counting sort on arrays whose key range is found by a first pass over
+     * the array rather than given by the caller. The histogram covers only
+     * [min, max], so keys may be negative and a narrow range far from zero
+     * costs no more than one near zero. If the range holds more values than
+     * the array holds Records (or than {@value #RADIX}, for small arrays),
+     * the histogram would be the larger structure, and the array is radix
+     * sorted instead.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void countingSort(Record[] a) {
+
+        if (a.length < 2) {
+            return;
+        }
+
+        int min = a[0].key, max = min;
+
+        for (int i = 1; i < a.length; ++i) {
+
+            int k = a[i].key;
+
+            if (k < min) {
+                min = k;
+            } else if (k > max) {
+                max = k;
+            }
+        }
+
+        if ((long) max - min >= Math.max(a.length, RADIX)) {
+            radixSort(a);
+        } else {
+            countingSort(a, min, max);
+        }
+    }
+
+    /**
+     *
+     * Parallel counting sort on arrays, see {@link #countingSort(Record[])}.
+     * The array is split into one block per thread of the pool. Each block
+     * finds the smallest and largest of its keys and then counts its keys in a
+     * histogram of its own. A prefix sum over all histograms gives each block
+     * its own slice of the output for every key, so the blocks scatter their
+     * Records in parallel and the sort stays stable. Only ranges small enough
+     * for the histograms of all blocks together to be no larger than the
+     * array are counted; wider ranges are sorted by
+     * {@link #parallelRadixSort(Record[], ForkJoinPool)}.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void countingSort(Record[] a, ForkJoinPool pool) {
+        ParallelCountingSort.sort(a, pool, ParallelCountingSort.SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     *
+     * Counting sort of an array whose keys are all in [min, max].
+     */
+    static void countingSort(Record[] a, int min, int max) {
+
+        /*Create an array of integers, ranging from min - max, to store the 
+         * total counts of each key in the input array*/
+        int[] counts = new int[max - min + 1];
+
+        for (int i = 0; i < a.length; ++i) {
+            ++counts[a[i].getKey() - min];
+        }
+
+        int total = 0, c;
+
+        for (int i = 0; i < counts.length; ++i) {
+
+            c = counts[i]; /*preserve the current value at this index*/
+            counts[i] = total; /*this index now holds the count of the total number of keys less than min + i*/
+            total += c;
+        }
+
+        Record[] b = new Record[a.length];/*new array to store to sorted list*/
+
+        /*walk through input array again, using the key at each index to find 
+         * the "counts" value, which in turn is the index in the output array 
+         * that the element(s) with this key must be placed*/
+        for (int i = 0; i < a.length; ++i) {
+            b[counts[a[i].getKey() - min]++] = a[i];
+        }
+
+        System.arraycopy(b, 0, a, 0, a.length); /*copy sorted list back into original array*/
+    }
+
+    /**
+     *
+     * LSD radix sort on arrays, allocating its auxiliary array per call. See
+     * {@link #radixSort(Record[], Record[])}.
+     *
+     * Stable but not in-place.
+     *
+     * @param a the Record array to be sorted
+     */
+    public static void radixSort(Record[] a) {
+        radixSort(a, new Record[a.length]);
+    }
+
+    /**
+     *
+     * LSD radix sort on arrays using a caller-supplied auxiliary array.
+     *
+     * Keys are sorted one 8-bit digit at a time, least significant digit
+     * first, with a stable counting pass per digit that moves the Records
+     * back and forth between the input and the scratch array. Unlike counting
+     * sort and bucket sort this works for any int key, negative keys
+     * included: the sign bit of every key is flipped so that the unsigned
+     * digits order the keys as signed ints. The histograms of all four digits
+     * are gathered in a single pass over the input, and a digit that is the
+     * same for every key (e.g. the high digits when all keys are small) is
+     * skipped entirely.
+     *
+     * Stable but not in-place. O(n) time.
+     *
+     * @param a the Record array to be sorted
+     * @param scratch an array at least as long as a. Its contents are
+     * overwritten.
+     * @throws IllegalArgumentException if scratch is shorter than a
+     */
+    public static void radixSort(Record[] a, Record[] scratch) {
+
+        if (scratch.length < a.length) {
+            throw new IllegalArgumentException("scratch array is shorter than the input array");
+        }
+
+        if (radixSort(a, scratch, 0, a.length) != a) { /*an odd number of passes left the result in scratch*/
+            System.arraycopy(scratch, 0, a, 0, a.length);
+        }
+    }
+
+    /**
+     *
+     * LSD radix sort of a[lo, hi), using scratch[lo, hi) as auxiliary space.
+     *
+     * @param a the Record array holding the range to be sorted
+     * @param scratch an array at least hi elements long
+     * @param lo the first index of the range to be sorted
+     * @param hi one past the last index of the range to be sorted
+     * @return whichever of a and scratch holds the sorted range on return
+     */
+    static Record[] radixSort(Record[] a, Record[] scratch, int lo, int hi) {
+
+        int n = hi - lo;
+
+        if (n < 2) {
+            return a;
+        }
+
+        /*One histogram of RADIX counts per digit, laid out back to back*/
+        int[] counts = new int[RADIX_DIGITS * RADIX];
+
+        for (int i = lo; i < hi; ++i) {
+
+            int k = a[i].getKey() ^ Integer.MIN_VALUE;
+
+            ++counts[k & RADIX_MASK];
+            ++counts[RADIX + ((k >>> RADIX_BITS) & RADIX_MASK)];
+            ++counts[2 * RADIX + ((k >>> (2 * RADIX_BITS)) & RADIX_MASK)];
+            ++counts[3 * RADIX + (k >>> (3 * RADIX_BITS))];
+        }
+
+        Record[] src = a, dst = scratch, t;
+
+        int first = a[lo].getKey() ^ Integer.MIN_VALUE;
+
+        for (int d = 0; d < RADIX_DIGITS; ++d) {
+
+            int base = d * RADIX, shift = d * RADIX_BITS;
+
+            if (counts[base + ((first >>> shift) & RADIX_MASK)] == n) {
+                continue; /*every key has the same digit here*/
+            }
+
+            /*Turn the counts into the index of the first Record of each digit*/
+            for (int b = base, total = lo, c; b < base + RADIX; ++b) {
+
+                c = counts[b];
+                counts[b] = total;
+                total += c;
+            }
+
+            for (int i = lo; i < hi; ++i) {
+
+                Record r = src[i];
+
+                dst[counts[base + (((r.getKey() ^ Integer.MIN_VALUE) >>> shift) & RADIX_MASK)]++] = r;
+            }
+
+            t = src;
+            src = dst;
+            dst = t;
+        }
+
+        return src;
+    }
+
+    /**
+     *
+     * Parallel radix sort on arrays. The range is partitioned by its most
+     * significant varying 8 bits in parallel passes over blocks of the input
+     * (per-block histograms, a prefix sum, then a buffered parallel scatter),
+     * after which the buckets are sorted in parallel, each either partitioned
+     * again or finished with the sequential LSD radix sort. Inputs of up to
+     * {@value ParallelRadixSort#SEQUENTIAL_THRESHOLD} Records are sorted
+     * sequentially.
+     *
+     * Stable but not in-place: one auxiliary array of n Records is allocated.
+     * Handles the full range of int keys.
+     *
+     * @param a the Record array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void parallelRadixSort(Record[] a, ForkJoinPool pool) {
+        ParallelRadixSort.sort(a, pool, ParallelRadixSort.SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     *
+     * Parallel radix sort on an array of primitive int keys, see
+     * {@link #parallelRadixSort(Record[], ForkJoinPool)}. One auxiliary array
+     * of n ints is allocated.
+     *
+     * @param a the int array to be sorted
+     * @param pool the ForkJoinPool whose threads perform the sort
+     */
+    public static void parallelRadixSort(int[] a, ForkJoinPool pool) {
+        ParallelRadixSort.sort(a, pool, ParallelRadixSort.SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Binary search on an sorted array. This implementation is non-recursive.
+     *
+     * @param a the Record array to be searched. The array must be sorted in
+     * order for the algorithm to perform the search correctly.
+     * @param key the key to search for in the array.
+     * @return the index in the array of the Record whose key matches the search
+     * key k, or -1 if the key is not found.
+     */
+    public static int binarySearch(Record[] a, int key) {
+
+        int i = 0,
+                j = a.length - 1,
+                k;
+
+        while (i <= j) {
+
+            /**
+             * Using "k = (i + j) >> 1" also works but can potentially cause
+             * integer overflow if (i + j) > Integer.MAX_VALUE
+             */
+            k = i + ((j - i) >> 1);
+
+            if (key == a[k].getKey()) {
+                return k;
+            } else if (key < a[k].getKey()) {
+                j = k - 1;
+            } else {
+                i = k + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     *
+     * Binary search for a batch of keys on a sorted array. Looking up many keys
+     * one at a time with {@link #binarySearch(Record[], int)} makes every
+     * probe wait on its own cache miss; this method shares the work between
+     * the queries instead:
+     *
+     * If the keys are in ascending order, the table is walked once from left
+     * to right, and each key is found by galloping forward from the position
+     * of the previous one, so close keys cost only a few probes.
+     *
+     * Otherwise the keys are searched for in groups of
+     * {@value #SEARCH_GROUP}. The searches of a group probe the table in
+     * lockstep, halving the same range length at every step, so their
+     * loads are independent of each other and their cache misses overlap.
+     *
+     * @param table the Record array to be searched, sorted by key
+     * @param keys the keys to search for
+     * @return an array r where r[i] is the first index in table whose Record
+     * has key keys[i], or -1 if there is none
+     */
+    public static int[] binarySearchAll(Record[] table, int[] keys) {
+
+        int[] r = new int[keys.length];
+
+        binarySearchAll(table, keys, r, 0, keys.length);
+
+        return r;
+    }
+
+    /**
+     *
+     * Binary search for a batch of keys on a sorted array, see
+     * {@link #binarySearchAll(Record[], int[])}. Batches of more than
+     * {@value #PARALLEL_SEARCH_THRESHOLD} keys are split into slices that are
+     * searched as separate fork/join tasks; each slice is checked for
+     * ascending order on its own.
+     *
+     * @param table the Record array to be searched, sorted by key
+     * @param keys the keys to search for
+     * @param pool the ForkJoinPool whose threads perform the search
+     * @return an array r where r[i] is the first index in table whose Record
+     * has key keys[i], or -1 if there is none
+     */
+    public static int[] binarySearchAll(Record[] table, int[] keys, ForkJoinPool pool) {
+
+        int[] r = new int[keys.length];
+
+        pool.invoke(new SearchTask(table, keys, r, 0, keys.length));
+
+        return r;
+    }
+
+    private static void binarySearchAll(Record[] table, int[] keys, int[] r, int lo, int hi) {
+
+        int i = lo + 1;
+
+        while (i < hi && keys[i - 1] <= keys[i]) {
+            ++i;
+        }
+
+        if (i >= hi) {
+            gallopingSearch(table, keys, r, lo, hi);
+        } else {
+            interleavedSearch(table, keys, r, lo, hi);
+        }
+    }
+
+    /**
+     *
+     * Search for the ascending keys[lo, hi) in a single pass over the table.
+     */
+    private static void gallopingSearch(Record[] table, int[] keys, int[] r, int lo, int hi) {
+
+        int n = table.length, p = 0;
+
+        for (int i = lo; i < hi; ++i) {
+
+            int key = keys[i], l = p, h = p, step = 1;
+
+            /*Every Record before p is less than key; double the step until a
+             * Record that is not, or the end of the table, is passed*/
+            while (h < n && table[h].key < key) {
+
+                l = h + 1;
+                h = (int) Math.min((long) h + step, n);
+                step <<= 1;
+            }
+
+            p = lowerBound(table, l, h, key);
+
+            r[i] = p < n && table[p].key == key ? p : -1;
+        }
+    }
+
+    /**
+     *
+     * Search for keys[lo, hi) in groups whose probes are interleaved.
+     */
+    private static void interleavedSearch(Record[] table, int[] keys, int[] r, int lo, int hi) {
+
+        int n = table.length;
+
+        if (n == 0) {
+
+            Arrays.fill(r, lo, hi, -1);
+
+            return;
+        }
+
+        int[] base = new int[SEARCH_GROUP];
+
+        for (int g = lo; g < hi; g += SEARCH_GROUP) {
+
+            int m = Math.min(SEARCH_GROUP, hi - g);
+
+            Arrays.fill(base, 0);
+
+            /*The first index not less than keys[g + j] is in
+             * [base[j], base[j] + len]. Every search of the group has the same
+             * len, so the probes of one step do not depend on each other. The
+             * sign of the widened difference selects the half without a
+             * branch*/
+            for (int len = n; len > 1; ) {
+
+                int half = len >>> 1;
+
+                for (int j = 0; j < m; ++j) {
+                    base[j] += half & (int) (((long) table[base[j] + half].key - keys[g + j]) >> 63);
+                }
+
+                len -= half;
+            }
+
+            for (int j = 0; j < m; ++j) {
+
+                int key = keys[g + j], b = base[j];
+
+                if (table[b].key < key) {
+                    ++b;
+                }
+
+                r[g + j] = b < n && table[b].key == key ? b : -1;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the first index in [lo, hi) of the sorted Record array a whose
+     * key is not less than key, or hi if there is none
+     */
+    private static int lowerBound(Record[] a, int lo, int hi, int key) {
+
+        while (lo < hi) {
+
+            int m = lo + ((hi - lo) >> 1);
+
+            if (a[m].key < key) {
+                lo = m + 1;
+            } else {
+                hi = m;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     *
+     * Searches for keys[lo, hi) and stores the results in the same range of r.
+     */
+    @SuppressWarnings("serial")
+    private static final class SearchTask extends RecursiveAction {
+
+        private final Record[] table;
+        private final int[] keys, r;
+        private final int lo, hi;
+
+        SearchTask(Record[] table, int[] keys, int[] r, int lo, int hi) {
+            this.table = table;
+            this.keys = keys;
+            this.r = r;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (hi - lo <= PARALLEL_SEARCH_THRESHOLD) {
+
+                binarySearchAll(table, keys, r, lo, hi);
+
+                return;
+            }
+
+            int m = lo + ((hi - lo) >> 1);
+
+            invokeAll(new SearchTask(table, keys, r, lo, m), new SearchTask(table, keys, r, m, hi));
+        }
+    }
+
+    /**
+     * Quickselect on an array. Select the element with the k-th smallest key in
+     * an unsorted array in expected O(n) time. This algorithm actually selects
+     * the element that would occupy index (k - 1) if the input array were
+     * sorted, which would be the k-th smallest key if the input array is a set
+     * of unique key values. A common application for this algorithm is finding
+     * the median key in a set of unsorted keys.
+     *
+     * @param a the Record array from which to select from
+     * @param k the index of the element such that the element would occupy
+     * index (k - 1) in a sorted array
+     * @return the Record with the k-th smallest key
+     */
+    public static Record quickSelect(Record[] a, int k) {
+        return SortingAndSelection.quickSelect(a, k, 0, a.length - 1);
+    }
+
+    private static Record quickSelect(Record[] a, int k, int start, int end) {
+
+        if (start >= end) {
+            return a[start];
+        }
+
+        int i = start - 1,
+                j = end,
+                p = Math.max(start, new Random().nextInt(end));
+
+        Record t, pivot;
+
+        pivot = a[p];
+
+        a[p] = a[end];
+
+        /*Temporarily store the pivot element at the end of this sub-array 
+         * while the swapping happens*/
+        a[end] = pivot;
+
+        do {
+
+            do {/*Increment 'i' until an element >= pivot is found at index 'i'*/
+                ++i;
+            } while (a[i].compareTo(pivot) < 0);
+
+            do {/*Decrement 'j' until an element <= pivot is found at index 'j'*/
+                --j;
+            } while (a[j].compareTo(pivot) > 0 && j > start);
+
+            if (i < j) {
+
+                t = a[i];
+
+                a[i] = a[j];
+
+                a[j] = t;
+            }
+
+        } while (i < j);
+
+        a[end] = a[i];
+
+        a[i] = pivot;/*Index 'i' is the final destination of pivot*/
+
+        int offset = (i - start) + 1;
+
+        if (k == offset) {
+            return a[i];
+        } else if (k < offset) {
+            return quickSelect(a, k, start, i - 1);
+        } else {
+            return quickSelect(a, k - offset, i + 1, end);
+        }
+    }
+
+    /**
+     * Quickselect on an array with three-way partitioning. Selects the same
+     * element as {@link #quickSelect(Record[], int)}, but every partition
+     * step sets aside all keys equal to the pivot, and the search stops as
+     * soon as the requested index falls among them. This makes selection on
+     * inputs with few distinct keys close to a single linear pass. The loop is
+     * iterative and allocates nothing.
+     *
+     * @param a the Record array from which to select from
+     * @param k the index of the element such that the element would occupy
+     * index (k - 1) in a sorted array
+     * @return the Record with the k-th smallest key
+     */
+    public static Record quickSelect3Way(Record[] a, int k) {
+
+        int lo = 0, hi = a.length, i = k - 1;
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            long bounds = partition3Way(a, lo, hi);
+
+            int lt = (int) (bounds >>> 32), gt = (int) bounds;
+
+            if (i < lt) {
+                hi = lt;
+            } else if (i >= gt) {
+                lo = gt;
+            } else {
+                return a[i];
+            }
+        }
+
+        insertionSort(a, lo, hi);
+
+        return a[i];
+    }
+
+    /**
+     * Introselect on an array. Selects the same element as
+     * {@link #quickSelect(Record[], int)} but with a guaranteed O(n) worst
+     * case, for latency-sensitive callers.
+     *
+     * Large sub-arrays are partitioned around a pivot chosen by Floyd and
+     * Rivest's sampling step: a small sample around the target position is
+     * itself selected recursively, which puts a pivot very close to the k-th
+     * element and typically discards most of the array in one pass. Smaller
+     * sub-arrays use a median-of-three or ninther pivot. If the partitioning
+     * work exceeds {@value #SELECT_WORK_FACTOR} times the input size, progress
+     * has stalled and the remaining iterations fall back to the median of
+     * medians, which always discards at least 3/10 of the sub-array. The
+     * selection loop itself is iterative and nothing is allocated.
+     *
+     * @param a the Record array from which to select from
+     * @param k the index of the element such that the element would occupy
+     * index (k - 1) in a sorted array
+     * @return the Record with the k-th smallest key
+     */
+    public static Record introSelect(Record[] a, int k) {
+
+        introSelect(a, 0, a.length, k - 1);
+
+        return a[k - 1];
+    }
+
+    /**
+     *
+     * Rearrange a[lo, hi) so that a[i] holds the element that would occupy
+     * that index if the range were sorted, with no greater element before it
+     * and no smaller element after it.
+     */
+    private static void introSelect(Record[] a, int lo, int hi, int i) {
+
+        long budget = SELECT_WORK_FACTOR * (long) (hi - lo);
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            int n = hi - lo, p;
+
+            if (budget < 0) {
+                p = medianOfMedians(a, lo, hi);
+            } else if (n > FLOYD_RIVEST_THRESHOLD) {
+
+                /*Select i within a sample of about n^(2/3) elements around it, 
+                 * skewed towards the middle of the range*/
+                int r = i - lo + 1;
+
+                double z = Math.log(n),
+                        s = 0.5 * Math.exp(2 * z / 3),
+                        sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * Math.signum(r - n / 2.0);
+
+                int sampleLo = Math.max(lo, (int) (i - r * s / n + sd)),
+                        sampleHi = Math.min(hi - 1, (int) (i + (n - r) * s / n + sd));
+
+                introSelect(a, sampleLo, sampleHi + 1, i);
+
+                p = i;
+            } else {
+                p = pivotIndex(a, lo, hi);
+            }
+
+            budget -= n;
+
+            p = partition(a, lo, hi, p);
+
+            if (p == i) {
+                return;
+            } else if (i < p) {
+                hi = p;
+            } else {
+                lo = p + 1;
+            }
+        }
+
+        insertionSort(a, lo, hi);
+    }
+
+    /**
+     *
+     * Find a pivot by the median of medians: sort each group of five
+     * elements, gather the group medians at the front of the range and select
+     * their median.
+     *
+     * @return the index of the median of medians
+     */
+    private static int medianOfMedians(Record[] a, int lo, int hi) {
+
+        int g = lo;
+
+        Record t;
+
+        for (int s = lo; s < hi; s += 5) {
+
+            int e = Math.min(s + 5, hi);
+
+            insertionSort(a, s, e);
+
+            t = a[g];
+            a[g] = a[s + ((e - s - 1) >> 1)];
+            a[s + ((e - s - 1) >> 1)] = t;
+
+            ++g;
+        }
+
+        int m = lo + ((g - lo - 1) >> 1);
+
+        introSelect(a, lo, g, m);
+
+        return m;
+    }
+
+    /**
+     * Select several order statistics at once, e.g. a set of percentiles.
+     *
+     * The requested ranks are sorted and the middle one is selected with
+     * {@link #introSelect(Record[], int)}, which partitions the array around
+     * it; the ranks below it are then only searched for to its left and the
+     * ranks above it only to its right, and so on recursively. Sub-arrays that
+     * contain no requested rank are never touched again, so q ranks cost
+     * O(n log q) rather than the O(qn) of q separate quickselects.
+     *
+     * @param a the Record array from which to select from. It is reordered so
+     * that every selected Record sits at its sorted position.
+     * @param ranks the ranks to select, each in [1, a.length], in any order
+     * and possibly repeated
+     * @return the Records whose sorted positions are ranks[0] - 1, ranks[1] -
+     * 1, ..., in the order the ranks were given
+     * @throws IllegalArgumentException if a rank is outside [1, a.length]
+     */
+    public static Record[] multiSelect(Record[] a, int[] ranks) {
+
+        int[] r = ranks.clone();
+
+        sort(r);
+
+        int q = 0;
+
+        for (int i = 0; i < r.length; ++i) {
+
+            if (r[i] < 1 || r[i] > a.length) {
+                throw new IllegalArgumentException("rank " + r[i] + " is outside [1, " + a.length + "]");
+            }
+
+            if (q == 0 || r[i] != r[q - 1]) { /*drop repeated ranks*/
+                r[q++] = r[i];
+            }
+        }
+
+        multiSelect(a, 0, a.length, r, 0, q);
+
+        Record[] selected = new Record[ranks.length];
+
+        for (int i = 0; i < ranks.length; ++i) {
+            selected[i] = a[ranks[i] - 1];
+        }
+
+        return selected;
+    }
+
+    /**
+     *
+     * Place the elements of the sorted, distinct ranks[rlo, rhi) at their
+     * sorted positions, all of which lie within a[lo, hi).
+     */
+    private static void multiSelect(Record[] a, int lo, int hi, int[] ranks, int rlo, int rhi) {
+
+        while (rlo < rhi) {
+
+            int m = (rlo + rhi) >>> 1, i = ranks[m] - 1;
+
+            introSelect(a, lo, hi, i);
+
+            multiSelect(a, lo, i, ranks, rlo, m);
+
+            lo = i + 1;
+            rlo = m + 1;
+        }
+    }
+
+    /**
+     *
+     * Sort an array of primitive ints.
+     *
+     * Introspective quicksort: median-of-three pivots, insertion sort for
+     * short sub-arrays, recursion on the smaller partition only and a
+     * heapsort fallback once the recursion depth exceeds 2 log n, which
+     * bounds the worst case at O(n log n). Working directly on the primitive
+     * array avoids the pointer dereference that every Record comparison
+     * costs.
+     *
+     * In-place but not stable.
+     *
+     * @param a the int array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length, depthLimit(a.length));
+    }
+
+    private static void sort(int[] a, int lo, int hi, int depth) {
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            if (depth-- == 0) {
+
+                heapSort(a, lo, hi);
+
+                return;
+            }
+
+            int p = partition(a, lo, hi);
+
+            /*Recurse on the smaller side and loop on the larger one, which 
+             * keeps the stack depth logarithmic*/
+            if (p - lo < hi - p) {
+                sort(a, lo, p, depth);
+                lo = p + 1;
+            } else {
+                sort(a, p + 1, hi, depth);
+                hi = p;
+            }
+        }
+
+        insertionSort(a, lo, hi);
+    }
+
+    /**
      *
-     * Stable but not in-place.
+     * Partition a[lo, hi) around the median of its first, middle and last
+     * elements.
      *
-     * @param a the Record array to be sorted
-     * @param max the maximum value of the known range of keys in the array to
-     * be sorted
+     * @return the final index of the pivot
      */
-    public static void countingSort(Record[] a, int max) {
+    private static int partition(int[] a, int lo, int hi) {
 
-        /*Create an array of integers, ranging from 0 - max, to store the total 
-         * counts of each key in the input array*/
-        int[] counts = new int[max + 1];
+        int m = lo + ((hi - lo) >> 1), last = hi - 1, t;
 
-        for (int i = 0; i < a.length; ++i) {
-            ++counts[a[i].getKey()];
+        /*Order the three samples so that a[lo] <= a[m] <= a[last]*/
+        if (a[m] < a[lo]) {
+            t = a[m];
+            a[m] = a[lo];
+            a[lo] = t;
         }
 
-        int total = 0, c;
+        if (a[last] < a[m]) {
 
-        for (int i = 0; i < counts.length; ++i) {
+            t = a[last];
+            a[last] = a[m];
+            a[m] = t;
 
-            c = counts[i]; /*preserve the current value at this index*/
-            counts[i] = total; /*this index now holds the count of the total number of keys less than i*/
-            total += c;
+            if (a[m] < a[lo]) {
+                t = a[m];
+                a[m] = a[lo];
+                a[lo] = t;
+            }
         }
 
-        Record[] b = new Record[a.length];/*new array to store to sorted list*/
+        /*Move the median to the front. a[lo] then stops the downward scan 
+         * and a[last] stops the upward one.*/
+        int pivot = a[m];
+        a[m] = a[lo];
+        a[lo] = pivot;
 
-        /*walk through input array again, using the key at each index to find 
-         * the "counts" value, which in turn is the index in the output array 
-         * that the element(s) with this key must be placed*/
-        for (int i = 0; i < a.length; ++i) {
-            b[counts[a[i].getKey()]++] = a[i];
+        int i = lo, j = hi;
+
+        while (true) {
+
+            while (a[++i] < pivot) {
+            }
+
+            while (pivot < a[--j]) {
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+
+        a[lo] = a[j];
+        a[j] = pivot;
+
+        return j;
+    }
+
+    /**
+     *
+     * Partition a[lo, hi) around a[p].
+     *
+     * @return the final index of the pivot
+     */
+    private static int partition(int[] a, int lo, int hi, int p) {
+
+        int last = hi - 1, t, pivot = a[p];
+
+        a[p] = a[lo];
+        a[lo] = pivot;
+
+        int i = lo, j = hi;
+
+        while (true) {
+
+            /*Nothing stops the upward scan at the end of the range*/
+            while (a[++i] < pivot) {
+                if (i == last) {
+                    break;
+                }
+            }
+
+            while (pivot < a[--j]) {
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
         }
 
-        for (int i = 0; i < a.length; ++i) {/*copy sorted list back into original array*/
-            a[i] = b[i];
+        a[lo] = a[j];
+        a[j] = pivot;
+
+        return j;
+    }
+
+    private static void insertionSort(int[] a, int lo, int hi) {
+
+        int r, y;
+
+        for (int x = lo + 1; x < hi; ++x) {
+
+            r = a[x];
+            y = x;
+
+            while (y > lo && a[y - 1] > r) {
+                a[y] = a[--y];
+            }
+
+            a[y] = r;
         }
     }
 
     /**
-     * Binary search on an sorted array. This implementation is non-recursive.
      *
-     * @param a the Record array to be searched. The array must be sorted in
-     * order for the algorithm to perform the search correctly.
-     * @param key the key to search for in the array.
-     * @return the index in the array of the Record whose key matches the search
-     * key k, or -1 if the key is not found.
+     * In-place heapsort of a[lo, hi), used as the fallback of the
+     * introspective sort.
      */
-    public static int binarySearch(Record[] a, int key) {
+    private static void heapSort(int[] a, int lo, int hi) {
 
-        int i = 0,
-                j = a.length - 1,
-                k;
+        int n = hi - lo, t;
 
-        while (i <= j) {
+        for (int i = (n >> 1) - 1; i >= 0; --i) {
+            maxHeapBubbleDown(a, lo, i, n);
+        }
 
-            /**
-             * Using "k = (i + j) >> 1" also works but can potentially cause
-             * integer overflow if (i + j) > Integer.MAX_VALUE
-             */
-            k = i + ((j - i) >> 1);
+        while (--n > 0) {
 
-            if (key == a[k].getKey()) {
-                return k;
-            } else if (key < a[k].getKey()) {
-                j = k - 1;
+            t = a[lo];
+            a[lo] = a[lo + n];
+            a[lo + n] = t;
+
+            maxHeapBubbleDown(a, lo, 0, n);
+        }
+    }
+
+    /**
+     *
+     * @param heap the int array holding the heap at offset lo
+     * @param lo the index of the root of the heap
+     * @param i the heap index of the element to be moved down
+     * @param n the number of elements in the heap
+     */
+    private static void maxHeapBubbleDown(int[] heap, int lo, int i, int n) {
+
+        int r = heap[lo + i], j;
+
+        while ((j = (2 * i) + 1) < n) {
+
+            if (j + 1 < n && heap[lo + j] < heap[lo + j + 1]) {
+                ++j;
+            }
+
+            if (r >= heap[lo + j]) {
+                break;
+            }
+
+            heap[lo + i] = heap[lo + j];
+
+            i = j;
+        }
+
+        heap[lo + i] = r;
+    }
+
+    /**
+     *
+     * Sort an array of primitive longs. The same introspective quicksort as
+     * {@link #sort(int[])}.
+     *
+     * In-place but not stable.
+     *
+     * @param a the long array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length, depthLimit(a.length));
+    }
+
+    private static void sort(long[] a, int lo, int hi, int depth) {
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            if (depth-- == 0) {
+
+                heapSort(a, lo, hi);
+
+                return;
+            }
+
+            int p = partition(a, lo, hi);
+
+            if (p - lo < hi - p) {
+                sort(a, lo, p, depth);
+                lo = p + 1;
             } else {
-                i = k + 1;
+                sort(a, p + 1, hi, depth);
+                hi = p;
             }
         }
 
-        return -1;
+        insertionSort(a, lo, hi);
+    }
+
+    private static int partition(long[] a, int lo, int hi) {
+
+        int m = lo + ((hi - lo) >> 1), last = hi - 1;
+
+        long t;
+
+        if (a[m] < a[lo]) {
+            t = a[m];
+            a[m] = a[lo];
+            a[lo] = t;
+        }
+
+        if (a[last] < a[m]) {
+
+            t = a[last];
+            a[last] = a[m];
+            a[m] = t;
+
+            if (a[m] < a[lo]) {
+                t = a[m];
+                a[m] = a[lo];
+                a[lo] = t;
+            }
+        }
+
+        long pivot = a[m];
+        a[m] = a[lo];
+        a[lo] = pivot;
+
+        int i = lo, j = hi;
+
+        while (true) {
+
+            while (a[++i] < pivot) {
+            }
+
+            while (pivot < a[--j]) {
+            }
+
+            if (i >= j) {
+                break;
+            }
+
+            t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+
+        a[lo] = a[j];
+        a[j] = pivot;
+
+        return j;
+    }
+
+    private static void insertionSort(long[] a, int lo, int hi) {
+
+        long r;
+        int y;
+
+        for (int x = lo + 1; x < hi; ++x) {
+
+            r = a[x];
+            y = x;
+
+            while (y > lo && a[y - 1] > r) {
+                a[y] = a[--y];
+            }
+
+            a[y] = r;
+        }
+    }
+
+    private static void heapSort(long[] a, int lo, int hi) {
+
+        int n = hi - lo;
+
+        long t;
+
+        for (int i = (n >> 1) - 1; i >= 0; --i) {
+            maxHeapBubbleDown(a, lo, i, n);
+        }
+
+        while (--n > 0) {
+
+            t = a[lo];
+            a[lo] = a[lo + n];
+            a[lo + n] = t;
+
+            maxHeapBubbleDown(a, lo, 0, n);
+        }
+    }
+
+    private static void maxHeapBubbleDown(long[] heap, int lo, int i, int n) {
+
+        long r = heap[lo + i];
+
+        int j;
+
+        while ((j = (2 * i) + 1) < n) {
+
+            if (j + 1 < n && heap[lo + j] < heap[lo + j + 1]) {
+                ++j;
+            }
+
+            if (r >= heap[lo + j]) {
+                break;
+            }
+
+            heap[lo + i] = heap[lo + j];
+
+            i = j;
+        }
+
+        heap[lo + i] = r;
     }
 
     /**
-     * Quickselect on an array. Select the element with the k-th smallest key in
-     * an unsorted array in expected O(n) time. This algorithm actually selects
-     * the element that would occupy index (k - 1) if the input array were
-     * sorted, which would be the k-th smallest key if the input array is a set
-     * of unique key values. A common application for this algorithm is finding
-     * the median key in a set of unsorted keys.
      *
-     * @param a the Record array from which to select from
+     * @param n the number of elements to be sorted
+     * @return the recursion depth after which the introspective sorts switch
+     * to heapsort, 2 floor(log2 n)
+     */
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(n | 1));
+    }
+
+    /**
+     * Quickselect on an array of primitive ints. Select the key that would
+     * occupy index (k - 1) if the array were sorted, in O(n) time. The
+     * partitioning loop is iterative and uses median-of-three pivots; as in
+     * {@link #introSelect(Record[], int)}, once the partitioning work exceeds
+     * {@value #SELECT_WORK_FACTOR} times the input size the remaining
+     * iterations use the median of medians, so inputs built to defeat
+     * median-of-three cannot make it quadratic. Nothing is allocated.
+     *
+     * @param a the int array from which to select from
      * @param k the index of the element such that the element would occupy
      * index (k - 1) in a sorted array
-     * @return the Record with the k-th smallest key
+     * @return the k-th smallest key
      */
-    public static Record quickSelect(Record[] a, int k) {
-        return SortingAndSelection.quickSelect(a, k, 0, a.length - 1);
+    public static int quickSelect(int[] a, int k) {
+
+        select(a, 0, a.length, k - 1);
+
+        return a[k - 1];
     }
 
-    private static Record quickSelect(Record[] a, int k, int start, int end) {
+    /**
+     *
+     * Rearrange a[lo, hi) so that a[i] holds the key that would occupy that
+     * index if the range were sorted, with no greater key before it and no
+     * smaller key after it.
+     */
+    private static void select(int[] a, int lo, int hi, int i) {
 
-        if (start >= end) {
-            return a[start];
+        long budget = SELECT_WORK_FACTOR * (long) (hi - lo);
+
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+
+            int n = hi - lo,
+                    p = budget < 0 ? partition(a, lo, hi, medianOfMedians(a, lo, hi)) : partition(a, lo, hi);
+
+            budget -= n;
+
+            if (p == i) {
+                return;
+            } else if (i < p) {
+                hi = p;
+            } else {
+                lo = p + 1;
+            }
         }
 
-        int i = start - 1,
-                j = end,
-                p = Math.max(start, new Random().nextInt(end));
+        insertionSort(a, lo, hi);
+    }
 
-        Record t, pivot;
+    /**
+     *
+     * Find a pivot by the median of medians, see
+     * {@link #medianOfMedians(Record[], int, int)}.
+     *
+     * @return the index of the median of medians
+     */
+    private static int medianOfMedians(int[] a, int lo, int hi) {
 
-        pivot = a[p];
+        int g = lo, t;
 
-        a[p] = a[end];
+        for (int s = lo; s < hi; s += 5) {
 
-        /*Temporarily store the pivot element at the end of this sub-array 
-         * while the swapping happens*/
-        a[end] = pivot;
+            int e = Math.min(s + 5, hi);
 
-        do {
+            insertionSort(a, s, e);
 
-            do {/*Increment 'i' until an element >= pivot is found at index 'i'*/
-                ++i;
-            } while (a[i].compareTo(pivot) < 0);
+            t = a[g];
+            a[g] = a[s + ((e - s - 1) >> 1)];
+            a[s + ((e - s - 1) >> 1)] = t;
 
-            do {/*Decrement 'j' until an element <= pivot is found at index 'j'*/
-                --j;
-            } while (a[j].compareTo(pivot) > 0 && j > start);
+            ++g;
+        }
 
-            if (i < j) {
+        int m = lo + ((g - lo - 1) >> 1);
 
-                t = a[i];
+        select(a, lo, g, m);
 
-                a[i] = a[j];
+        return m;
+    }
 
-                a[j] = t;
-            }
+    /**
+     *
+     * Compute the permutation that sorts an array of keys, leaving the keys
+     * themselves untouched. Each key is packed together with its index into a
+     * single long (key in the high half, index in the low half) and the longs
+     * are sorted, so ties are broken by index and the permutation is stable.
+     *
+     * @param keys the int keys to be ordered
+     * @return an array perm such that keys[perm[0]], keys[perm[1]], ... is in
+     * ascending order, with equal keys in their original order
+     */
+    public static int[] sortIndices(int[] keys) {
 
-        } while (i < j);
+        long[] packed = new long[keys.length];
 
-        a[end] = a[i];
+        for (int i = 0; i < keys.length; ++i) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
 
-        a[i] = pivot;/*Index 'i' is the final destination of pivot*/
+        sort(packed);
 
-        int offset = (i - start) + 1;
+        int[] perm = new int[keys.length];
 
-        if (k == offset) {
-            return a[i];
-        } else if (k < offset) {
-            return quickSelect(a, k, start, i - 1);
-        } else {
-            return quickSelect(a, k - offset, i + 1, end);
+        for (int i = 0; i < perm.length; ++i) {
+            perm[i] = (int) packed[i];
         }
+
+        return perm;
     }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package sortingandselection;
+
+/**
+ *
+ * Collects the k Records with the largest keys out of a stream of Records of
+ * unknown length, using O(k) space. The k best Records seen so far are kept in
+ * a {@link MinHeap} of fixed capacity whose top is the smallest of them; a new
+ * Record is admitted only if it beats that top, in which case it takes the
+ * top's place with a single replaceTop. The heap is sized once to k and has
+ * the {@link Heap.ResizePolicy#FIXED} policy, so it never grows or shrinks.
+ * Collectors filled independently (e.g. one per thread) can be combined with
+ * {@link #merge(TopKCollector)}.
+ */
+public class TopKCollector {
+
+    private final MinHeap heap;
+    private final int k;
+
+    /**
+     *
+     * @param k the number of Records to keep
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    public TopKCollector(int k) {
+
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+
+        this.k = k;
+
+        heap = new MinHeap(k);
+
+        heap.setResizePolicy(Heap.ResizePolicy.FIXED);
+    }
+
+    /**
+     *
+     * Offer a Record to this collector. It is kept if fewer than k Records
+     * have been collected or if its key is greater than the smallest key
+     * collected so far; on equal keys the Record collected first is kept.
+     *
+     * @param r the Record to offer
+     * @return {@code true} if r was kept
+     */
+    public boolean offer(Record r) {
+
+        if (heap.size() < k) {
+
+            heap.add(r);
+
+            return true;
+        }
+
+        if (r.compareTo(heap.peek()) > 0) {
+
+            heap.replaceTop(r);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     *
+     * Offer every Record collected by another collector to this one. After
+     * the merge this collector holds the top k of both streams combined.
+     * The other collector is left unchanged.
+     *
+     * @param other the collector to merge into this one
+     */
+    public void merge(TopKCollector other) {
+
+        if (other == this) {
+            return;
+        }
+
+        for (int i = 1; i <= other.heap.count; ++i) {
+            offer(other.heap.heap[i]);
+        }
+    }
+
+    /**
+     *
+     * @return the Record with the smallest key still among the top k, i.e. the
+     * one a new Record has to beat once the collector is full, or null if
+     * nothing has been collected yet
+     */
+    public Record threshold() {
+        return heap.peek();
+    }
+
+    /**
+     *
+     * @return the collected Records ordered from the largest key to the
+     * smallest. The heap does not remember the order in which Records were
+     * offered, so Records with equal keys are in no particular order. The
+     * collector is left unchanged.
+     */
+    public Record[] toSortedArray() {
+
+        Record[] a = new Record[heap.count];
+
+        int n = heap.drainTo(a);
+
+        /*Put the Records back; a bottom-up rebuild of the full heap takes
+         * O(k) time and fits in its fixed capacity*/
+        heap.addAll(a);
+
+        /*The drain is ascending*/
+        for (int i = 0, j = n - 1; i < j; ++i, --j) {
+
+            Record t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+
+        return a;
+    }
+
+    /**
+     *
+     * @return the number of Records collected, at most k
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     *
+     * @return the maximum number of Records this collector keeps
+     */
+    public int capacity() {
+        return k;
+    }
+}
\ No newline at end of file